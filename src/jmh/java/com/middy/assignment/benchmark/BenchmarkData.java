@@ -0,0 +1,52 @@
+package com.middy.assignment.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.StatisticsModule;
+
+/**
+ * Shared fixtures so every benchmark runs against the same deterministic data and a frozen clock.
+ */
+final class BenchmarkData {
+
+    static final int PERIOD = 60000;
+    // 2023-10-05T10:30:00Z
+    static final long NOW = 1696501800000L;
+    static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Orders spread uniformly over the window with two-decimal amounts.
+     */
+    static Order[] orders(int size, long seed) {
+        Random random = new Random(seed);
+        Order[] orders = new Order[size];
+        for (int i = 0; i < size; i++) {
+            orders[i] = new Order(BigDecimal.valueOf(random.nextInt(1_000_000), 2), NOW - random.nextInt(PERIOD));
+        }
+        return orders;
+    }
+
+    /**
+     * A module with buckets of {@code resolution} ms in which one order was added for {@code fillPercent}
+     * percent of the milliseconds in the window.
+     */
+    static StatisticsModule filledModule(int fillPercent, int resolution, boolean exactBoundaries) {
+        StatisticsModule module = new StatisticsModule(CLOCK, PERIOD, resolution, exactBoundaries, StatisticsMetrics.disabled());
+        Random random = new Random(7);
+        for (int age = 0; age < PERIOD; age++) {
+            if (random.nextInt(100) < fillPercent) {
+                module.addOrder(new Order(BigDecimal.valueOf(random.nextInt(1_000_000), 2), NOW - age));
+            }
+        }
+        return module;
+    }
+}
@@ -0,0 +1,86 @@
+package com.middy.assignment.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.middy.assignment.dto.CompactOrderDto;
+import com.middy.assignment.dto.CompactStatisticsDto;
+import com.middy.assignment.dto.OrderDto;
+import com.middy.assignment.dto.ScaledDecimal;
+import com.middy.assignment.dto.StatisticsDto;
+import com.middy.assignment.dto.transformers.OrderTransformer;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.model.Statistics;
+
+/**
+ * Per content type cost of the two bodies on the request path: decoding and validating an order into an
+ * {@link Order}, and encoding the statistics. JSON uses the string DTOs, CBOR and Smile the compact DTOs with
+ * scaled integer amounts. The encoded sizes are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentTypeBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String contentType;
+
+    private ObjectMapper mapper;
+    private boolean compact;
+    private OrderTransformer transformer;
+    private Statistics statistics;
+    private byte[] orderBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = switch (contentType) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+        compact = !contentType.equals("json");
+        transformer = new OrderTransformer(BenchmarkData.CLOCK);
+        statistics = new Statistics(new BigDecimal("1500.75"), new BigDecimal("150.08"),
+                new BigDecimal("300.00"), new BigDecimal("50.25"), 10L, new BigDecimal("7425.19"), new BigDecimal("86.17"));
+        BigDecimal amount = new BigDecimal("1234.56");
+        String timestamp = Instant.ofEpochMilli(BenchmarkData.NOW - 1500).toString();
+        orderBody = compact
+                ? mapper.writeValueAsBytes(new CompactOrderDto(new ScaledDecimal(amount), timestamp))
+                : mapper.writeValueAsBytes(new OrderDto(amount.toPlainString(), timestamp));
+        System.out.printf("%n%s: order %d bytes, statistics %d bytes%n", contentType, orderBody.length, writeStatistics().length);
+    }
+
+    @Benchmark
+    public Order readOrder() throws IOException {
+        return compact
+                ? transformer.validateAndTransformToOrder(mapper.readValue(orderBody, CompactOrderDto.class))
+                : transformer.validateAndTransformToOrder(mapper.readValue(orderBody, OrderDto.class));
+    }
+
+    @Benchmark
+    public byte[] writeStatistics() throws IOException {
+        return compact
+                ? mapper.writeValueAsBytes(new CompactStatisticsDto(statistics))
+                : mapper.writeValueAsBytes(new StatisticsDto(statistics));
+    }
+}
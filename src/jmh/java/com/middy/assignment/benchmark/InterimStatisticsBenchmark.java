@@ -0,0 +1,45 @@
+package com.middy.assignment.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.middy.assignment.model.InterimStatistics;
+import com.middy.assignment.model.Order;
+
+/**
+ * Cost of {@link InterimStatistics#add(Order)} when every benchmark thread hits the same bucket,
+ * i.e. many orders for the same millisecond. Run with {@code -Djmh.threads=N} to vary contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterimStatisticsBenchmark {
+
+    private InterimStatistics bucket;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        bucket = new InterimStatistics();
+        order = new Order(new BigDecimal("123.45"), BenchmarkData.NOW);
+    }
+
+    @Benchmark
+    public void addSameTimestamp() {
+        bucket.add(order);
+    }
+}
@@ -0,0 +1,45 @@
+package com.middy.assignment.benchmark;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.middy.assignment.dto.OrderDto;
+import com.middy.assignment.dto.transformers.OrderTransformer;
+import com.middy.assignment.model.Order;
+
+/**
+ * Validation and parsing cost of {@link OrderTransformer#validateAndTransformToOrder(OrderDto)} for a valid order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderTransformerBenchmark {
+
+    private OrderTransformer transformer;
+    private OrderDto orderDto;
+
+    @Setup
+    public void setUp() {
+        transformer = new OrderTransformer(BenchmarkData.CLOCK);
+        orderDto = new OrderDto("1234.56", Instant.ofEpochMilli(BenchmarkData.NOW - 1500).toString());
+    }
+
+    @Benchmark
+    public Order validateAndTransformToOrder() {
+        return transformer.validateAndTransformToOrder(orderDto);
+    }
+}
@@ -0,0 +1,55 @@
+package com.middy.assignment.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.middy.assignment.dto.OrderDto;
+import com.middy.assignment.dto.StatisticsDto;
+
+/**
+ * Jackson cost of the two DTOs on the request path: reading an {@link OrderDto} and writing a {@link StatisticsDto}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private StatisticsDto statisticsDto;
+    private byte[] orderJson;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        statisticsDto = new StatisticsDto(new BigDecimal("1500.75"), new BigDecimal("150.08"),
+                new BigDecimal("300.00"), new BigDecimal("50.25"), 10L, new BigDecimal("7425.19"), new BigDecimal("86.17"));
+        orderJson = "{\"amount\":\"100.50\",\"timestamp\":\"2023-10-05T10:29:58.500Z\"}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] writeStatisticsDto() throws IOException {
+        return objectMapper.writeValueAsBytes(statisticsDto);
+    }
+
+    @Benchmark
+    public OrderDto readOrderDto() throws IOException {
+        return objectMapper.readValue(orderJson, OrderDto.class);
+    }
+}
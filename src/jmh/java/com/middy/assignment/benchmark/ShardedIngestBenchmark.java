@@ -0,0 +1,114 @@
+package com.middy.assignment.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.StatisticsModule;
+
+/**
+ * Ingest throughput of {@link StatisticsModule} when every thread writes into the same four milliseconds,
+ * comparing a single bucket store with sharded stores ({@code 0} = one per available processor).
+ * <p>
+ * JMH runs one thread count at a time, so {@link #main} repeats the benchmark for 1 to 64 threads and prints
+ * a shards by threads table: {@code mvn -Pbenchmark test-compile exec:exec@contention}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ShardedIngestBenchmark {
+
+    private static final int MAX_THREADS = 64;
+
+    @State(Scope.Benchmark)
+    public static class ModuleState {
+        @Param({"1", "4", "16", "0"})
+        int shards;
+
+        StatisticsModule module;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            module = new StatisticsModule(BenchmarkData.CLOCK, BenchmarkData.PERIOD, 1, false, shards,
+                    StatisticsMetrics.disabled());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class HotOrders {
+        Order[] orders;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            orders = new Order[1024];
+            for (int i = 0; i < orders.length; i++) {
+                orders[i] = new Order(BigDecimal.valueOf(i + 1, 2), BenchmarkData.NOW - (i & 3));
+            }
+        }
+
+        Order nextOrder() {
+            return orders[next++ & (orders.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public void addHotOrder(ModuleState state, HotOrders orders) {
+        state.module.addOrder(orders.nextOrder());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        // shards -> threads -> ops/us
+        Map<String, Map<Integer, Double>> scores = new TreeMap<>();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            threadCounts.add(threads);
+            Options options = new OptionsBuilder()
+                    .include(ShardedIngestBenchmark.class.getName() + ".addHotOrder")
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-contention-" + threads + "-threads.json")
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                scores.computeIfAbsent(result.getParams().getParam("shards"), shards -> new TreeMap<>())
+                        .put(threads, result.getPrimaryResult().getScore());
+            }
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%n%-8s", "shards"));
+        threadCounts.forEach(threads -> table.append(String.format("%10s", threads + "t")));
+        scores.forEach((shards, byThreads) -> {
+            table.append(String.format("%n%-8s", shards));
+            threadCounts.forEach(threads -> table.append(String.format("%10.2f", byThreads.getOrDefault(threads, Double.NaN))));
+        });
+        System.out.println(table.append(String.format("%n(ops/us, higher is better)")));
+    }
+}
@@ -0,0 +1,130 @@
+package com.middy.assignment.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.model.Statistics;
+import com.middy.assignment.service.StatisticsModule;
+
+/**
+ * Ingest and query cost of {@link StatisticsModule}.
+ * <p>
+ * {@code addOrder} spreads orders over the whole window from every thread; {@code getStatistics} and
+ * {@code getRangeStatistics} run against a window where {@code fillPercent} of the milliseconds hold an order,
+ * for each bucket resolution with and without exact boundaries. {@code getStatisticsLargeWindow} compares the
+ * sequential and the fork-join scan over a ten minute window.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsModuleBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class IngestState {
+        StatisticsModule module;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            module = new StatisticsModule(BenchmarkData.CLOCK, BenchmarkData.PERIOD);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadOrders {
+        Order[] orders;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            orders = BenchmarkData.orders(1 << 16, Thread.currentThread().getId());
+        }
+
+        Order nextOrder() {
+            return orders[next++ & (orders.length - 1)];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class QueryState {
+        @Param({"0", "1", "10", "100"})
+        int fillPercent;
+
+        @Param({"1", "10", "100", "1000"})
+        int resolution;
+
+        @Param({"false", "true"})
+        boolean exactBoundaries;
+
+        StatisticsModule module;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            module = BenchmarkData.filledModule(fillPercent, resolution, exactBoundaries);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LargeWindowState {
+        // Ten minutes of millisecond buckets, 10 % filled
+        static final int LARGE_PERIOD = 600_000;
+
+        @Param({"false", "true"})
+        boolean parallelScan;
+
+        StatisticsModule module;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            module = new StatisticsModule(BenchmarkData.CLOCK, LARGE_PERIOD, 1, false, 1, parallelScan ? 1 : 0, 0,
+                    StatisticsMetrics.disabled());
+            Random random = new Random(7);
+            for (int age = 0; age < LARGE_PERIOD; age += 10) {
+                module.addOrder(new Order(BigDecimal.valueOf(random.nextInt(1_000_000), 2), BenchmarkData.NOW - age));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            module.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void addOrder(IngestState state, ThreadOrders orders) {
+        state.module.addOrder(orders.nextOrder());
+    }
+
+    @Benchmark
+    public Statistics getStatistics(QueryState state) {
+        return state.module.getStatistics(BenchmarkData.NOW, BenchmarkData.PERIOD);
+    }
+
+    @Benchmark
+    public Statistics getStatisticsLargeWindow(LargeWindowState state) {
+        return state.module.getStatistics(BenchmarkData.NOW, LargeWindowState.LARGE_PERIOD);
+    }
+
+    @Benchmark
+    public Statistics getRangeStatisticsLastFiveSeconds(QueryState state) {
+        return state.module.getRangeStatistics(BenchmarkData.NOW, BenchmarkData.NOW - 4999, BenchmarkData.NOW + 1);
+    }
+}
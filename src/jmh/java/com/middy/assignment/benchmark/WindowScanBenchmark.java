@@ -0,0 +1,57 @@
+package com.middy.assignment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.middy.assignment.model.Statistics;
+import com.middy.assignment.service.StatisticsModule;
+
+/**
+ * {@code getStatistics} with the scalar and the Vector API window mask. The kernel is chosen when the JVM starts,
+ * so each variant runs in its own fork whose JVM arguments replace the host's, with and without the module. The vector
+ * variant falls back to the scalar mask unless built with {@code -Pbenchmark,vector}.
+ * {@code StatisticsModuleBenchmark.getStatistics} from before the window mask is the baseline that locked every slot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WindowScanBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class FilledState {
+        @Param({"0", "1", "10", "100"})
+        int fillPercent;
+
+        StatisticsModule module;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            module = BenchmarkData.filledModule(fillPercent, 1, false);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgs = "-Xmx2g")
+    public Statistics scalarMask(FilledState state) {
+        return state.module.getStatistics(BenchmarkData.NOW, BenchmarkData.PERIOD);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgs = {"-Xmx2g", "--add-modules=jdk.incubator.vector"})
+    public Statistics vectorMask(FilledState state) {
+        return state.module.getStatistics(BenchmarkData.NOW, BenchmarkData.PERIOD);
+    }
+}
@@ -0,0 +1,258 @@
+package com.middy.assignment.loadtest;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-model HTTP load generator for a running instance of the service.
+ * <p>
+ * Requests are issued at a constant arrival rate regardless of how fast the server answers. Each request has an
+ * intended start time on a fixed schedule and its latency is measured from that intended time, not from the moment
+ * it was actually sent, which corrects for coordinated omission: a stalled server is charged for every request
+ * that should have been sent while it was stalled.
+ * <p>
+ * Configuration (system properties):
+ * <ul>
+ *     <li>{@code load.url} base URL, default {@code http://localhost:8080}</li>
+ *     <li>{@code load.rate} total requests per second, default 1000</li>
+ *     <li>{@code load.duration} measured seconds, default 30</li>
+ *     <li>{@code load.warmup} seconds of traffic before recording, default 10</li>
+ *     <li>{@code load.getRatio} fraction of requests that are {@code GET /v1/statistics}, default 0.1</li>
+ *     <li>{@code load.maxInFlight} cap on outstanding requests, default 10000</li>
+ *     <li>{@code load.seed} seed for the request mix and amounts, default 42</li>
+ *     <li>{@code load.output} directory for the report and {@code .hgrm} files, default {@code target/load-test}</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+
+    // Latencies are recorded in microseconds, up to one minute, with 3 significant digits
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final URI ordersUri;
+    private final URI statisticsUri;
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final double getRatio;
+    private final Semaphore inFlight;
+    private final Random random;
+    private final Path output;
+    private final HttpClient client;
+
+    private final OperationStats post = new OperationStats("POST /v1/orders");
+    private final OperationStats get = new OperationStats("GET /v1/statistics");
+
+    LoadGenerator(String baseUrl, double rate, Duration duration, Duration warmup, double getRatio,
+                  int maxInFlight, long seed, Path output) {
+        this.ordersUri = URI.create(baseUrl + "/v1/orders");
+        this.statisticsUri = URI.create(baseUrl + "/v1/statistics");
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.getRatio = getRatio;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.random = new Random(seed);
+        this.output = output;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator(
+                System.getProperty("load.url", "http://localhost:8080"),
+                Double.parseDouble(System.getProperty("load.rate", "1000")),
+                Duration.ofSeconds(Long.getLong("load.duration", 30)),
+                Duration.ofSeconds(Long.getLong("load.warmup", 10)),
+                Double.parseDouble(System.getProperty("load.getRatio", "0.1")),
+                Integer.getInteger("load.maxInFlight", 10000),
+                Long.getLong("load.seed", 42),
+                Path.of(System.getProperty("load.output", "target/load-test")));
+        generator.run();
+        System.exit(0);
+    }
+
+    void run() throws InterruptedException, IOException {
+        System.out.printf("Warming up for %ds at %.0f req/s (%.0f%% GET)%n", warmup.toSeconds(), rate, getRatio * 100);
+        drive(warmup, false);
+        post.reset();
+        get.reset();
+
+        System.out.printf("Measuring for %ds%n", duration.toSeconds());
+        long start = System.nanoTime();
+        drive(duration, true);
+        // Throughput is over the schedule only; the drain below just lets late responses be counted
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        awaitQuiescence(Duration.ofSeconds(10));
+
+        report(System.out, elapsedSeconds);
+        Files.createDirectories(output);
+        try (PrintStream out = new PrintStream(new FileOutputStream(output.resolve("report.md").toFile()))) {
+            report(out, elapsedSeconds);
+        }
+        post.writeDistribution(output.resolve("post.hgrm"));
+        get.writeDistribution(output.resolve("get.hgrm"));
+        System.out.printf("Report and percentile distributions written to %s%n", output.toAbsolutePath());
+    }
+
+    /**
+     * Issues requests on a fixed schedule for {@code length}. Requests that cannot be sent because
+     * {@code load.maxInFlight} is exhausted are counted as dropped and recorded with the latency they have
+     * accumulated so far, so overload still shows up in the percentiles.
+     */
+    private void drive(Duration length, boolean record) {
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                return;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            OperationStats stats = random.nextDouble() < getRatio ? get : post;
+            if (!inFlight.tryAcquire()) {
+                stats.dropped(record, intendedStart);
+                continue;
+            }
+            HttpRequest request = stats == get ? statisticsRequest() : orderRequest();
+            stats.sent();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        int expected = stats == get ? 200 : 201;
+                        boolean ok = error == null && response.statusCode() == expected;
+                        stats.completed(record, intendedStart, ok);
+                    });
+        }
+    }
+
+    private void awaitQuiescence(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline && post.outstanding() + get.outstanding() > 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        if (post.outstanding() + get.outstanding() > 0) {
+            System.out.printf("%d requests were still in flight when the report was produced%n",
+                    post.outstanding() + get.outstanding());
+        }
+    }
+
+    private HttpRequest orderRequest() {
+        String amount = String.format("%d.%02d", random.nextInt(10000), random.nextInt(100));
+        String timestamp = Instant.now().minusMillis(random.nextInt(1000)).toString();
+        String body = "{\"amount\":\"" + amount + "\",\"timestamp\":\"" + timestamp + "\"}";
+        return HttpRequest.newBuilder(ordersUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest statisticsRequest() {
+        return HttpRequest.newBuilder(statisticsUri).GET().build();
+    }
+
+    private void report(PrintStream out, double elapsedSeconds) {
+        out.printf("Target rate: %.0f req/s, measured for %.1fs, GET ratio %.2f%n%n", rate, elapsedSeconds, getRatio);
+        out.println("| Operation | Completed | Errors | Dropped | Throughput (req/s) | p50 (ms) | p95 (ms) | p99 (ms) | p99.9 (ms) | max (ms) |");
+        out.println("|-----------|-----------|--------|---------|--------------------|----------|----------|----------|------------|----------|");
+        post.printRow(out, elapsedSeconds);
+        get.printRow(out, elapsedSeconds);
+        out.println();
+    }
+
+    private static final class OperationStats {
+        private final String name;
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        OperationStats(String name) {
+            this.name = name;
+        }
+
+        void completed(boolean record, long intendedStartNanos, boolean ok) {
+            completed.incrementAndGet();
+            if (!record) {
+                return;
+            }
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+            recordSince(intendedStartNanos);
+        }
+
+        void dropped(boolean record, long intendedStartNanos) {
+            if (record) {
+                dropped.incrementAndGet();
+                recordSince(intendedStartNanos);
+            }
+        }
+
+        void sent() {
+            sent.incrementAndGet();
+        }
+
+        long outstanding() {
+            return sent.get() - completed.get();
+        }
+
+        void reset() {
+            latencies.reset();
+            errors.set(0);
+            dropped.set(0);
+        }
+
+        private void recordSince(long intendedStartNanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+            latencies.recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+        }
+
+        void printRow(PrintStream out, double elapsedSeconds) {
+            out.printf("| %s | %d | %d | %d | %.0f | %.2f | %.2f | %.2f | %.2f | %.2f |%n",
+                    name, latencies.getTotalCount() - dropped.get(), errors.get(), dropped.get(),
+                    (latencies.getTotalCount() - dropped.get() - errors.get()) / elapsedSeconds,
+                    millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(95)),
+                    millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()));
+        }
+
+        void writeDistribution(Path file) throws IOException {
+            try (PrintStream out = new PrintStream(new FileOutputStream(file.toFile()))) {
+                latencies.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
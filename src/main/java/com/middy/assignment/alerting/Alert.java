@@ -0,0 +1,16 @@
+package com.middy.assignment.alerting;
+
+/**
+ * A change of state of an {@link AlertRule}: it started to breach its limit, or stopped.
+ *
+ * @param rule      the rule expression
+ * @param value     the measured value at the tick of the change
+ * @param limit     the limit the value was compared with
+ * @param timestamp ISO-8601 time of the tick
+ */
+public record Alert(String rule, State state, double value, double limit, String timestamp) {
+
+    public enum State {
+        FIRING, RESOLVED
+    }
+}
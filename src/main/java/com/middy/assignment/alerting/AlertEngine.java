@@ -0,0 +1,97 @@
+package com.middy.assignment.alerting;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.middy.assignment.model.Statistics;
+import com.middy.assignment.service.StatisticsModule;
+
+/**
+ * Evaluates the {@link AlertRule}s of {@code stats-alert-rules} (separated by {@code ;}) once per tick and publishes
+ * an {@link Alert} to every {@link AlertSink} when a rule starts or stops breaching its limit.
+ * <p>
+ * Each distinct window is read once per tick through {@link StatisticsModule#getRangeStatistics}, which combines
+ * {@code O(log period)} pre-aggregated nodes of the range index, so a tick costs the same however many orders arrive.
+ * A rule without enough orders to judge keeps its previous state.
+ * <p>
+ * Only created with {@code stats-alert-enabled: true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats-alert-enabled", havingValue = "true")
+public class AlertEngine {
+
+    private final StatisticsModule statisticsModule;
+    private final Clock clock;
+    private final List<AlertRule> rules;
+    private final List<AlertSink> sinks;
+    // Latest alert of every rule currently firing, keyed by rule expression
+    private final Map<String, Alert> firing = new ConcurrentHashMap<>();
+
+    public AlertEngine(StatisticsModule statisticsModule, Clock clock, List<AlertSink> sinks,
+                       @Value("${stats-period-in-milliseconds}") int statisticsPeriodInMillis,
+                       @Value("${stats-alert-rules:}") String rules) {
+        this.statisticsModule = statisticsModule;
+        this.clock = clock;
+        this.sinks = sinks;
+        this.rules = Arrays.stream(rules.split(";"))
+                .filter(rule -> !rule.isBlank())
+                .map(AlertRule::parse)
+                .toList();
+        for (AlertRule rule : this.rules) {
+            if (rule.windowMillis() <= 0 || Math.max(rule.windowMillis(), rule.baselineMillis()) > statisticsPeriodInMillis) {
+                throw new IllegalArgumentException(String.format(
+                        "Windows of alert rule '%s' must be positive and at most the period of %d ms",
+                        rule.expression(), statisticsPeriodInMillis));
+            }
+        }
+        log.info("Alerting enabled with {} rules and {} sinks", this.rules.size(), sinks.size());
+    }
+
+    @Scheduled(fixedRateString = "${stats-alert-tick-in-milliseconds:1000}")
+    public void evaluate() {
+        long now = clock.millis();
+        Map<Long, Statistics> windows = new HashMap<>();
+        for (AlertRule rule : rules) {
+            AlertRule.Evaluation evaluation = rule.evaluate(windowMillis -> windows.computeIfAbsent(windowMillis,
+                    window -> statisticsModule.getRangeStatistics(now, now - window + 1, now + 1)));
+            if (evaluation == null || evaluation.breached() == firing.containsKey(rule.expression())) {
+                continue;
+            }
+            Alert alert = new Alert(rule.expression(), evaluation.breached() ? Alert.State.FIRING : Alert.State.RESOLVED,
+                    evaluation.value(), evaluation.limit(), Instant.ofEpochMilli(now).toString());
+            if (evaluation.breached()) {
+                firing.put(rule.expression(), alert);
+            } else {
+                firing.remove(rule.expression());
+            }
+            publish(alert);
+        }
+    }
+
+    private void publish(Alert alert) {
+        for (AlertSink sink : sinks) {
+            try {
+                sink.publish(alert);
+            } catch (RuntimeException e) {
+                log.warn("Alert sink {} failed", sink.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    public Collection<Alert> getFiringAlerts() {
+        return firing.values();
+    }
+}
@@ -0,0 +1,110 @@
+package com.middy.assignment.alerting;
+
+import java.math.BigDecimal;
+import java.util.function.LongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import com.middy.assignment.model.Statistics;
+
+/**
+ * A threshold on one statistic of the most recent orders, written as {@code <metric>(<window>) <op> <limit>}.
+ * <p>
+ * The metric is one of {@code count}, {@code sum}, {@code avg}, {@code min}, {@code max} or {@code stddev} of the orders
+ * in the last {@code window} (e.g. {@code 10s}), and the operator {@code >} or {@code <}. The limit is either a number,
+ * as in {@code count(10s) < 5}, or {@code <k> sigma(<baseline>)}, as in {@code avg(10s) > 3 sigma(60s)}: the mean of
+ * the amounts over the baseline window plus (for {@code >}) or minus (for {@code <}) {@code k} of their standard
+ * deviations. Sigma limits apply to {@code avg}, {@code min} and {@code max}.
+ *
+ * @param expression the rule as written, which also identifies its alerts
+ */
+public record AlertRule(String expression, Metric metric, long windowMillis, boolean above, double threshold,
+                        double sigmas, long baselineMillis) {
+
+    private static final Pattern RULE = Pattern.compile(
+            "(\\w+)\\(\\s*(\\w+)\\s*\\)\\s*([<>])\\s*(?:([0-9.]+)\\s*sigma\\(\\s*(\\w+)\\s*\\)|(-?[0-9.]+))");
+
+    public enum Metric {
+        COUNT, SUM, AVG, MIN, MAX, STDDEV;
+
+        private BigDecimal of(Statistics statistics) {
+            return switch (this) {
+                case COUNT -> BigDecimal.valueOf(statistics.getCount());
+                case SUM -> statistics.getSum();
+                case AVG -> statistics.getAvg();
+                case MIN -> statistics.getMin();
+                case MAX -> statistics.getMax();
+                case STDDEV -> statistics.getStddev();
+            };
+        }
+    }
+
+    /**
+     * The measured value of a rule at one tick, the limit it was compared with and whether it crossed it.
+     */
+    public record Evaluation(double value, double limit, boolean breached) {
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code expression} is not a valid rule
+     */
+    public static AlertRule parse(String expression) {
+        String rule = expression.trim();
+        Matcher matcher = RULE.matcher(rule);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Alert rule must read <metric>(<window>) <op> <limit>: " + rule);
+        }
+        Metric metric;
+        try {
+            metric = Metric.valueOf(matcher.group(1).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown metric " + matcher.group(1) + " in alert rule: " + rule);
+        }
+        long windowMillis = DurationStyle.detectAndParse(matcher.group(2)).toMillis();
+        boolean above = matcher.group(3).equals(">");
+        if (matcher.group(6) != null) {
+            return new AlertRule(rule, metric, windowMillis, above, Double.parseDouble(matcher.group(6)), 0, 0);
+        }
+        if (metric != Metric.AVG && metric != Metric.MIN && metric != Metric.MAX) {
+            throw new IllegalArgumentException("Sigma limits apply to avg, min and max only: " + rule);
+        }
+        return new AlertRule(rule, metric, windowMillis, above, 0, Double.parseDouble(matcher.group(4)),
+                DurationStyle.detectAndParse(matcher.group(5)).toMillis());
+    }
+
+    boolean isRelative() {
+        return baselineMillis > 0;
+    }
+
+    /**
+     * Evaluates the rule against the statistics of the windows ending now, as returned by {@code statisticsOfLast}
+     * for a window length in milliseconds.
+     *
+     * @return the evaluation, or {@code null} when there are too few orders to judge: none in the window for anything
+     * but {@code count} and {@code sum}, or fewer than two in the baseline of a sigma limit, or when the standard
+     * deviation it needs is unavailable
+     */
+    Evaluation evaluate(LongFunction<Statistics> statisticsOfLast) {
+        Statistics window = statisticsOfLast.apply(windowMillis);
+        if (window.getCount() == 0 && metric != Metric.COUNT && metric != Metric.SUM) {
+            return null;
+        }
+        BigDecimal measured = metric.of(window);
+        if (measured == null) {
+            return null;
+        }
+        double value = measured.doubleValue();
+        double limit = threshold;
+        if (isRelative()) {
+            Statistics baseline = statisticsOfLast.apply(baselineMillis);
+            if (baseline.getCount() < 2 || baseline.getStddev() == null) {
+                return null;
+            }
+            double deviation = sigmas * baseline.getStddev().doubleValue();
+            limit = baseline.getAvg().doubleValue() + (above ? deviation : -deviation);
+        }
+        return new Evaluation(value, limit, above ? value > limit : value < limit);
+    }
+}
@@ -0,0 +1,10 @@
+package com.middy.assignment.alerting;
+
+/**
+ * Destination of the alerts raised by {@link AlertEngine}. Called on the evaluation thread, so implementations must
+ * hand off anything slow.
+ */
+public interface AlertSink {
+
+    void publish(Alert alert);
+}
@@ -0,0 +1,25 @@
+package com.middy.assignment.alerting;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes every alert to the {@code alerts} logger: firing ones as warnings, resolved ones as info.
+ */
+@Component
+@ConditionalOnProperty(name = "stats-alert-enabled", havingValue = "true")
+public class LogAlertSink implements AlertSink {
+
+    private static final Logger log = LoggerFactory.getLogger("alerts");
+
+    @Override
+    public void publish(Alert alert) {
+        if (alert.state() == Alert.State.FIRING) {
+            log.warn("Alert firing: {} (value {}, limit {})", alert.rule(), alert.value(), alert.limit());
+        } else {
+            log.info("Alert resolved: {} (value {}, limit {})", alert.rule(), alert.value(), alert.limit());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.middy.assignment.alerting;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes every alert as an {@code alert} server-sent event to the clients subscribed through
+ * {@code GET /v1/alerts/stream}. Clients whose connection fails are dropped.
+ */
+@Component
+@ConditionalOnProperty(name = "stats-alert-enabled", havingValue = "true")
+public class SseAlertSink implements AlertSink {
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    public SseEmitter subscribe() {
+        // Never times out; the emitter is removed once its client goes away
+        SseEmitter emitter = new SseEmitter(0L);
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onError(failure -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    @Override
+    public void publish(Alert alert) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("alert").data(alert, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.middy.assignment.alerting;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Posts every alert as JSON to {@code stats-alert-webhook-url}, if set. Requests are sent asynchronously and failures
+ * are only logged; alerts are not retried.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats-alert-enabled", havingValue = "true")
+public class WebhookAlertSink implements AlertSink {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final URI url;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+    public WebhookAlertSink(@Value("${stats-alert-webhook-url:}") String url, ObjectMapper objectMapper) {
+        this.url = url.isBlank() ? null : URI.create(url);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(Alert alert) {
+        if (url == null) {
+            return;
+        }
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(alert);
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot encode alert {}", alert, e);
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (failure != null) {
+                log.warn("Alert webhook {} failed: {}", url, failure.toString());
+            } else if (response.statusCode() >= 300) {
+                log.warn("Alert webhook {} answered {}", url, response.statusCode());
+            }
+        });
+    }
+}
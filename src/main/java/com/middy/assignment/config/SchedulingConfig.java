@@ -0,0 +1,14 @@
+package com.middy.assignment.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+
+/**
+ * Enables {@link org.springframework.scheduling.annotation.Scheduled} methods, such as the periodic
+ * archiving of expired statistics buckets into the history rollups.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,49 @@
+package com.middy.assignment.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.middy.assignment.tracing.SpanAttributes;
+import com.middy.assignment.tracing.TailSamplingSpanProcessor;
+
+/**
+ * OpenTelemetry tracing of the ingest and query pipeline, exported through the logging exporter.
+ * <p>
+ * Disabled by default ({@code stats-otel-enabled}), in which case the no-op tracer is used and spans cost a virtual call.
+ * When enabled every span is recorded and {@link TailSamplingSpanProcessor} keeps a {@code stats-otel-sample-ratio}
+ * share of traces plus every span of at least {@code stats-otel-latency-threshold-in-microseconds}.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public OpenTelemetry openTelemetry(@Value("${stats-otel-enabled:false}") boolean enabled,
+                                       @Value("${stats-otel-sample-ratio:0.01}") double sampleRatio,
+                                       @Value("${stats-otel-latency-threshold-in-microseconds:1000}") long latencyThresholdMicros) {
+        if (!enabled) {
+            return OpenTelemetry.noop();
+        }
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .setSampler(Sampler.alwaysOn())
+                .addSpanProcessor(new TailSamplingSpanProcessor(
+                        BatchSpanProcessor.builder(LoggingSpanExporter.create()).build(),
+                        sampleRatio, TimeUnit.MICROSECONDS.toNanos(latencyThresholdMicros)))
+                .build();
+        return OpenTelemetrySdk.builder().setTracerProvider(tracerProvider).build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer(SpanAttributes.INSTRUMENTATION_SCOPE);
+    }
+}
@@ -1,27 +1,27 @@
 package com.middy.assignment.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import com.middy.assignment.logging.LogInterceptor;
+import com.middy.assignment.logging.TraceInterceptor;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    private final LogInterceptor logInterceptor;
+    private final ObjectProvider<TraceInterceptor> traceInterceptor;
 
-    public WebConfig(LogInterceptor logInterceptor) {
-        this.logInterceptor = logInterceptor;
+    public WebConfig(ObjectProvider<TraceInterceptor> traceInterceptor) {
+        this.traceInterceptor = traceInterceptor;
     }
 
     /**
-     * /**
-     * Registers the LogInterceptor to intercept all incoming HTTP requests.
-     * By default, the interceptor applies to all requests unless further configuration is added.
+     * Registers the TraceInterceptor for all incoming HTTP requests when request tracing is enabled
+     * ({@code stats-trace-enabled}); otherwise no interceptor runs at all.
      */
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(logInterceptor);
+        traceInterceptor.ifAvailable(registry::addInterceptor);
     }
 }
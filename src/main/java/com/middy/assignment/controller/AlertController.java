@@ -0,0 +1,44 @@
+package com.middy.assignment.controller;
+
+import java.util.Collection;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.middy.assignment.alerting.Alert;
+import com.middy.assignment.alerting.AlertEngine;
+import com.middy.assignment.alerting.SseAlertSink;
+
+@RestController
+@RequestMapping("/v1/alerts")
+@ConditionalOnProperty(name = "stats-alert-enabled", havingValue = "true")
+public class AlertController {
+
+    private final AlertEngine alertEngine;
+    private final SseAlertSink sseAlertSink;
+
+    public AlertController(AlertEngine alertEngine, SseAlertSink sseAlertSink) {
+        this.alertEngine = alertEngine;
+        this.sseAlertSink = sseAlertSink;
+    }
+
+    /**
+     * Returns the alerts currently firing.
+     */
+    @GetMapping
+    public Collection<Alert> getFiringAlerts() {
+        return alertEngine.getFiringAlerts();
+    }
+
+    /**
+     * Streams every alert as it fires or resolves, as server-sent events named {@code alert}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlerts() {
+        return sseAlertSink.subscribe();
+    }
+}
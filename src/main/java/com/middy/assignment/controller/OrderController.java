@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import com.middy.assignment.dto.transformers.OrderTransformer;
+import com.middy.assignment.dto.CompactMediaTypes;
+import com.middy.assignment.dto.CompactOrderDto;
 import com.middy.assignment.dto.OrderDto;
 import com.middy.assignment.exception.OrderValidationException;
 import com.middy.assignment.model.Order;
@@ -44,6 +46,24 @@ public class OrderController {
         }
     }
 
+    /**
+     * Binary variant of {@link #addOrder(OrderDto)} for CBOR and Smile bodies, with the amount as unscaled integer
+     * and scale.
+     */
+    @PostMapping(consumes = {CompactMediaTypes.CBOR_VALUE, CompactMediaTypes.SMILE_VALUE})
+    public ResponseEntity<Void> addOrder(@RequestBody CompactOrderDto orderDto) {
+        try {
+            Order order = orderTransformer.validateAndTransformToOrder(orderDto);
+            orderService.addOrder(order);
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        } catch (OrderValidationException e) {
+            return ResponseEntity.status(e.getHttpStatus()).build();
+        } catch (Exception e) {
+            log.error("Unexpected error on addOrder", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
     @DeleteMapping
     public ResponseEntity<Void> deleteAllOrders() {
         try {
@@ -0,0 +1,110 @@
+package com.middy.assignment.controller;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.middy.assignment.dto.OrderDto;
+import com.middy.assignment.dto.transformers.OrderTransformer;
+import com.middy.assignment.exception.OrderValidationException;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.OrderService;
+
+/**
+ * Handles JSON {@code POST /v1/orders} without going through the dispatcher servlet: the body is read as bytes, bound
+ * to an {@link OrderDto} by the application's {@link ObjectMapper}, validated by {@link OrderTransformer} and passed to
+ * {@link OrderService}, and only the status is written. Statuses match {@link OrderController#addOrder(OrderDto)},
+ * including {@code sendError(400)} for bodies that do not bind, as the dispatcher does for an unreadable body.
+ * <p>
+ * Every other request, including orders in CBOR, Smile or JSON in a charset other than UTF-8, continues down the
+ * chain to MVC. Fast path requests skip handler interceptors, so they are not seen by the request tracer. Enabled
+ * with {@code stats-fast-path-enabled}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats-fast-path-enabled", havingValue = "true")
+public class OrderIngestFilter implements Filter {
+
+    static final String PATH = "/v1/orders";
+    private static final String JSON = "application/json";
+
+    private final ObjectReader orderReader;
+    private final OrderTransformer orderTransformer;
+    private final OrderService orderService;
+
+    public OrderIngestFilter(ObjectMapper objectMapper, OrderTransformer orderTransformer, OrderService orderService) {
+        this.orderReader = objectMapper.readerFor(OrderDto.class);
+        this.orderTransformer = orderTransformer;
+        this.orderService = orderService;
+        log.info("OrderIngestFilter handling JSON POST {} outside MVC", PATH);
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        if (!isJsonOrder(request)) {
+            chain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        OrderDto orderDto;
+        try {
+            byte[] body = request.getInputStream().readAllBytes();
+            orderDto = body.length == 0 ? null : orderReader.readValue(body);
+        } catch (JacksonException e) {
+            orderDto = null;
+        }
+        if (orderDto == null) {
+            // Same as a missing or unreadable @RequestBody
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        try {
+            Order order = orderTransformer.validateAndTransformToOrder(orderDto);
+            orderService.addOrder(order);
+            response.setStatus(HttpStatus.CREATED.value());
+        } catch (OrderValidationException e) {
+            response.setStatus(e.getHttpStatus().value());
+        } catch (Exception e) {
+            log.error("Unexpected error on addOrder", e);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
+    private static boolean isJsonOrder(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return false;
+        }
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (uri.length() != contextPath.length() + PATH.length() || !uri.endsWith(PATH) || !uri.startsWith(contextPath)) {
+            return false;
+        }
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.regionMatches(true, 0, JSON, 0, JSON.length())) {
+            return false;
+        }
+        if (contentType.length() == JSON.length()) {
+            return true;
+        }
+        // Parameters other than a UTF-8 charset are left to MVC
+        String parameters = contentType.substring(JSON.length()).replace(" ", "");
+        return parameters.equalsIgnoreCase(";charset=UTF-8") || parameters.equalsIgnoreCase(";charset=\"UTF-8\"");
+    }
+}
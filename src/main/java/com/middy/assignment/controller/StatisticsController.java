@@ -1,18 +1,38 @@
 package com.middy.assignment.controller;
 
 import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.middy.assignment.dto.CompactMediaTypes;
+import com.middy.assignment.dto.CompactStatisticsDto;
+import com.middy.assignment.dto.OrderRatesDto;
 import com.middy.assignment.dto.StatisticsDto;
+import com.middy.assignment.dto.StatisticsPointDto;
 import com.middy.assignment.service.StatisticsService;
+import com.middy.assignment.service.StatisticsVersionWatcher;
 
 
 @Slf4j
@@ -20,24 +40,271 @@ import com.middy.assignment.service.StatisticsService;
 @RequestMapping("/v1/statistics")
 public class StatisticsController {
 
+    private static final long DEFAULT_HISTORY_RANGE_MILLIS = 3_600_000L;
+    // Extra time the servlet container waits for a long-poll beyond its own deadline before answering 304 itself
+    private static final long LONG_POLL_GRACE_MILLIS = 1_000L;
+    private static final Set<MediaType> COMPACT_MEDIA_TYPES = Set.of(
+            MediaType.parseMediaType(CompactMediaTypes.CBOR_VALUE), MediaType.parseMediaType(CompactMediaTypes.SMILE_VALUE));
+
     private final int statisticsPeriodInMillis;
+    private final long maxWaitMillis;
     private final StatisticsService statisticsService;
+    private final StatisticsVersionWatcher versionWatcher;
     private final Clock clock;
+    // Window versions restart with the process, so ETags carry an instance id to never match a previous run
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
 
-    public StatisticsController(StatisticsService statisticsService, Clock clock, @Value("${statistics.period.millis:60000}") int statisticsPeriodInMillis) {
+    public StatisticsController(StatisticsService statisticsService, StatisticsVersionWatcher versionWatcher, Clock clock,
+                                @Value("${stats-period-in-milliseconds}") int statisticsPeriodInMillis,
+                                @Value("${stats-long-poll-max-wait-in-milliseconds:30000}") long maxWaitMillis) {
         this.statisticsService = statisticsService;
+        this.versionWatcher = versionWatcher;
         this.clock = clock;
         this.statisticsPeriodInMillis = statisticsPeriodInMillis;
+        this.maxWaitMillis = maxWaitMillis;
     }
 
+    /**
+     * Returns the statistics for the whole window, or for the sub-range {@code [from, to)} when either bound is given.
+     * <p>
+     * Window statistics carry an {@code ETag} of the window version; a request whose {@code If-None-Match} still matches
+     * is answered {@code 304 Not Modified} without computing them. Clients preferring CBOR or Smile in {@code Accept}
+     * get a {@link CompactStatisticsDto} with a weak {@code ETag}; everyone else gets JSON.
+     *
+     * @param from ISO-8601 start (inclusive), defaults to the start of the window
+     * @param to   ISO-8601 end (exclusive), defaults to just after now
+     */
     @GetMapping
-    public ResponseEntity<StatisticsDto> getStatistics() {
+    public ResponseEntity<?> getStatistics(@RequestParam(required = false) String from,
+                                           @RequestParam(required = false) String to,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean compact = prefersCompact(accept);
+        if (from != null || to != null) {
+            return getRangeStatistics(from, to, compact);
+        }
         try {
-            Statistics stat = statisticsService.getStatistics(clock.millis(), statisticsPeriodInMillis);
-            return ResponseEntity.ok(new StatisticsDto(stat));
+            long now = clock.millis();
+            long version = statisticsService.getWindowVersion(now);
+            if (matches(ifNoneMatch, eTag(version))) {
+                return notModified(version, compact);
+            }
+            return ok(statisticsService.getStatisticsSnapshot(now, statisticsPeriodInMillis), compact);
         } catch (Exception e) {
             log.error("Error querying statistics", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Long-poll variant of {@link #getStatistics}: while {@code If-None-Match} matches the current window version the
+     * response is held until the version changes, or answered {@code 304 Not Modified} after {@code wait} milliseconds
+     * (capped by {@code stats-long-poll-max-wait-in-milliseconds}).
+     *
+     * @param wait longest time in milliseconds to hold the request
+     */
+    @GetMapping(params = {"wait", "!from", "!to"})
+    public DeferredResult<ResponseEntity<?>> awaitStatistics(@RequestParam long wait,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (wait < 0) {
+            DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+            return result;
+        }
+        boolean compact = prefersCompact(accept);
+        long timeoutMillis = Math.min(wait, maxWaitMillis);
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeoutMillis + LONG_POLL_GRACE_MILLIS);
+        long version;
+        try {
+            version = statisticsService.getWindowVersion(clock.millis());
+        } catch (Exception e) {
+            log.error("Error querying statistics version", e);
+            result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+            return result;
+        }
+        if (!matches(ifNoneMatch, eTag(version))) {
+            result.setResult(getStatistics(null, null, null, accept));
+            return result;
+        }
+
+        CompletableFuture<Optional<StatisticsSnapshot>> change = versionWatcher.awaitChange(version, timeoutMillis);
+        result.onTimeout(() -> result.setResult(notModified(version, compact)));
+        result.onCompletion(() -> change.cancel(false));
+        change.whenComplete((snapshot, failure) -> {
+            if (failure != null) {
+                result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+            } else if (snapshot.isEmpty()) {
+                result.setResult(notModified(version, compact));
+            } else {
+                result.setResult(ok(snapshot.get(), compact));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Writes the pre-serialized JSON of {@code snapshot} as is, skipping Jackson, or its compact form.
+     */
+    private ResponseEntity<?> ok(StatisticsSnapshot snapshot, boolean compact) {
+        if (compact) {
+            return ResponseEntity.ok()
+                    .eTag(weakETag(snapshot.getVersion()))
+                    .body(new CompactStatisticsDto(snapshot.getStatistics()));
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag(snapshot.getVersion()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
+    }
+
+    private ResponseEntity<?> notModified(long version, boolean compact) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(compact ? weakETag(version) : eTag(version)).build();
+    }
+
+    // Compact bodies are semantically equivalent to the JSON body, not byte-identical, hence a weak validator
+    private String weakETag(long version) {
+        return "W/" + eTag(version);
+    }
+
+    private String eTag(long version) {
+        return "\"" + instanceId + "-" + version + "\"";
+    }
+
+    /**
+     * Checks an {@code If-None-Match} header value, a comma separated list of entity tags or {@code *}, against
+     * {@code etag} using weak comparison.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the most preferred media type of {@code accept} that this endpoint can produce is CBOR or Smile.
+     * Wildcards, a missing header and ties resolve to JSON.
+     */
+    private static boolean prefersCompact(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType preferred = null;
+        for (MediaType mediaType : mediaTypes) {
+            boolean producible = COMPACT_MEDIA_TYPES.contains(mediaType.removeQualityValue())
+                    || mediaType.isCompatibleWith(MediaType.APPLICATION_JSON);
+            if (producible && (preferred == null || mediaType.getQualityValue() > preferred.getQualityValue())) {
+                preferred = mediaType;
+            }
+        }
+        return preferred != null && COMPACT_MEDIA_TYPES.contains(preferred.removeQualityValue());
+    }
+
+    private ResponseEntity<?> getRangeStatistics(String from, String to, boolean compact) {
+        try {
+            long now = clock.millis();
+            long fromMillis = from == null ? now - statisticsPeriodInMillis + 1 : Instant.parse(from).toEpochMilli();
+            long toMillis = to == null ? now + 1 : Instant.parse(to).toEpochMilli();
+            Statistics stat = statisticsService.getRangeStatistics(now, fromMillis, toMillis);
+            if (compact) {
+                return ResponseEntity.ok(new CompactStatisticsDto(stat));
+            }
+            return ResponseEntity.ok(new StatisticsDto(stat));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            log.debug("Invalid statistics range from={} to={}: {}", from, to, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error querying range statistics", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Returns archived per-step statistics for {@code [from, to)}.
+     *
+     * @param from ISO-8601 start (inclusive), defaults to one hour before {@code to}
+     * @param to   ISO-8601 end (exclusive), defaults to now
+     * @param step step length such as {@code 1m}, {@code 15m} or {@code 1h}
+     */
+    @GetMapping("/history")
+    public ResponseEntity<List<StatisticsPointDto>> getHistory(@RequestParam(required = false) String from,
+                                                               @RequestParam(required = false) String to,
+                                                               @RequestParam(defaultValue = "1m") String step) {
+        long toMillis;
+        long fromMillis;
+        long stepMillis;
+        try {
+            toMillis = to == null ? clock.millis() : Instant.parse(to).toEpochMilli();
+            fromMillis = from == null ? toMillis - DEFAULT_HISTORY_RANGE_MILLIS : Instant.parse(from).toEpochMilli();
+            stepMillis = DurationStyle.detectAndParse(step).toMillis();
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            log.debug("Invalid history query from={} to={} step={}", from, to, step, e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        try {
+            List<StatisticsPointDto> points = statisticsService.getHistory(fromMillis, toMillis, stepMillis).stream()
+                    .map(StatisticsPointDto::new)
+                    .toList();
+            return ResponseEntity.ok(points);
+        } catch (IllegalArgumentException e) {
+            log.debug("Unsupported history query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error querying statistics history", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Returns the current window as per-step points, the first and last of which may be partial.
+     *
+     * @param step step length such as {@code 1s} or {@code 10s}, a multiple of the bucket resolution
+     */
+    @GetMapping("/series")
+    public ResponseEntity<List<StatisticsPointDto>> getSeries(@RequestParam(defaultValue = "1s") String step) {
+        try {
+            long stepMillis = DurationStyle.detectAndParse(step).toMillis();
+            List<StatisticsPointDto> points = statisticsService.getSeries(clock.millis(), stepMillis).stream()
+                    .map(StatisticsPointDto::new)
+                    .toList();
+            return ResponseEntity.ok(points);
+        } catch (IllegalArgumentException e) {
+            log.debug("Unsupported series step {}: {}", step, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error querying statistics series", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Returns the orders per second and amount per second averaged over one, five and fifteen minutes with exponential
+     * decay, like load averages.
+     */
+    @GetMapping("/rates")
+    public ResponseEntity<OrderRatesDto> getRates() {
+        try {
+            return ResponseEntity.ok(new OrderRatesDto(statisticsService.getRates(clock.millis())));
+        } catch (Exception e) {
+            log.error("Error querying order rates", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 }
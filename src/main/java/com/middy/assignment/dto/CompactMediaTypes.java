@@ -0,0 +1,14 @@
+package com.middy.assignment.dto;
+
+/**
+ * Binary media types accepted and produced next to JSON. Their bodies use the compact DTOs, which carry amounts as
+ * {@link ScaledDecimal} instead of decimal strings.
+ */
+public final class CompactMediaTypes {
+
+    public static final String CBOR_VALUE = "application/cbor";
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private CompactMediaTypes() {
+    }
+}
@@ -0,0 +1,27 @@
+package com.middy.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * {@link OrderDto} for the binary media types of {@link CompactMediaTypes}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+public class CompactOrderDto {
+    private ScaledDecimal amount;
+    private String timestamp;
+    private String orderId;
+
+    public CompactOrderDto(ScaledDecimal amount, String timestamp) {
+        this(amount, timestamp, null);
+    }
+}
@@ -0,0 +1,49 @@
+package com.middy.assignment.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import com.middy.assignment.model.Statistics;
+
+/**
+ * {@link StatisticsDto} for the binary media types of {@link CompactMediaTypes}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+public class CompactStatisticsDto {
+    private ScaledDecimal sum;
+    private ScaledDecimal avg;
+    private ScaledDecimal max;
+    private ScaledDecimal min;
+    private long count;
+    private ScaledDecimal variance;
+    private ScaledDecimal stddev;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean estimated;
+
+    public CompactStatisticsDto(ScaledDecimal sum, ScaledDecimal avg, ScaledDecimal max, ScaledDecimal min, long count,
+                                ScaledDecimal variance, ScaledDecimal stddev) {
+        this(sum, avg, max, min, count, variance, stddev, false);
+    }
+
+    public CompactStatisticsDto(Statistics stat) {
+        this.sum = new ScaledDecimal(stat.getSum());
+        this.avg = new ScaledDecimal(stat.getAvg());
+        this.max = new ScaledDecimal(stat.getMax());
+        this.min = new ScaledDecimal(stat.getMin());
+        this.count = stat.getCount();
+        // Null when the amounts overflow the moments, see Statistics.of
+        this.variance = stat.getVariance() == null ? null : new ScaledDecimal(stat.getVariance());
+        this.stddev = stat.getStddev() == null ? null : new ScaledDecimal(stat.getStddev());
+        this.estimated = stat.isEstimated();
+    }
+}
@@ -16,4 +16,10 @@ import lombok.AllArgsConstructor;
 public class OrderDto {
     private String amount;
     private String timestamp;
+    // Optional client-chosen id; a retry with the same id inside the window is acknowledged but not counted again
+    private String orderId;
+
+    public OrderDto(String amount, String timestamp) {
+        this(amount, timestamp, null);
+    }
 }
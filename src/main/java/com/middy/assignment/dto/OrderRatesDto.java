@@ -0,0 +1,47 @@
+package com.middy.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import com.middy.assignment.model.OrderRates;
+import com.middy.assignment.model.Rates;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+public class OrderRatesDto {
+
+    private RatesDto orders;
+    private RatesDto amount;
+
+    public OrderRatesDto(OrderRates rates) {
+        this.orders = new RatesDto(rates.getOrders());
+        this.amount = new RatesDto(rates.getAmount());
+    }
+
+    /**
+     * Per-second rate averaged over one, five and fifteen minutes.
+     */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @ToString
+    @EqualsAndHashCode
+    public static class RatesDto {
+        private double oneMinute;
+        private double fiveMinute;
+        private double fifteenMinute;
+
+        public RatesDto(Rates rates) {
+            this(rates.getOneMinute(), rates.getFiveMinute(), rates.getFifteenMinute());
+        }
+    }
+}
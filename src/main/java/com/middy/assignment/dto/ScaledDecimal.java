@@ -0,0 +1,51 @@
+package com.middy.assignment.dto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Decimal amount as an unscaled integer and a scale, i.e. {@code unscaled * 10^-scale}, so binary formats carry it as
+ * two numbers instead of a string to parse.
+ * <p>
+ * The unscaled value is a {@link Long} whenever it fits, which CBOR and Smile encode in at most nine bytes, and a
+ * {@link BigInteger} otherwise.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+public class ScaledDecimal {
+    private Number unscaled;
+    private Integer scale;
+
+    public ScaledDecimal(BigDecimal value) {
+        BigInteger unscaledValue = value.unscaledValue();
+        this.unscaled = unscaledValue.bitLength() < Long.SIZE ? (Number) unscaledValue.longValue() : unscaledValue;
+        this.scale = value.scale();
+    }
+
+    /**
+     * @return the amount, or {@code null} when either part is missing or the unscaled value is not an integer
+     */
+    public BigDecimal toBigDecimal() {
+        if (unscaled == null || scale == null) {
+            return null;
+        }
+        if (unscaled instanceof BigInteger bigInteger) {
+            return new BigDecimal(bigInteger, scale);
+        }
+        if (unscaled instanceof Long || unscaled instanceof Integer || unscaled instanceof Short || unscaled instanceof Byte) {
+            return BigDecimal.valueOf(unscaled.longValue(), scale);
+        }
+        return null;
+    }
+}
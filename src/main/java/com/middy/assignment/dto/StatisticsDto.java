@@ -3,6 +3,7 @@ package com.middy.assignment.dto;
 import java.math.BigDecimal;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -29,6 +30,18 @@ public class StatisticsDto {
     @JsonFormat(shape = JsonFormat.Shape.STRING)
     private BigDecimal min;
     private Long count;
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private BigDecimal variance;
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private BigDecimal stddev;
+    // Only written when true: count and sum are estimates from sampled ingest
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean estimated;
+
+    public StatisticsDto(BigDecimal sum, BigDecimal avg, BigDecimal max, BigDecimal min, Long count,
+                         BigDecimal variance, BigDecimal stddev) {
+        this(sum, avg, max, min, count, variance, stddev, false);
+    }
 
     public StatisticsDto(Statistics stat) {
         this.sum = stat.getSum();
@@ -36,5 +49,8 @@ public class StatisticsDto {
         this.max = stat.getMax();
         this.min = stat.getMin();
         this.count = stat.getCount();
+        this.variance = stat.getVariance();
+        this.stddev = stat.getStddev();
+        this.estimated = stat.isEstimated();
     }
 }
@@ -0,0 +1,26 @@
+package com.middy.assignment.dto;
+
+import java.time.Instant;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.NoArgsConstructor;
+
+import com.middy.assignment.model.StatisticsPoint;
+
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class StatisticsPointDto extends StatisticsDto {
+
+    private String timestamp;
+
+    public StatisticsPointDto(StatisticsPoint point) {
+        super(point.getStatistics());
+        this.timestamp = Instant.ofEpochMilli(point.getTimestamp()).toString();
+    }
+}
@@ -3,23 +3,66 @@ package com.middy.assignment.dto.transformers;
 import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.function.Supplier;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import com.middy.assignment.dto.CompactOrderDto;
 import com.middy.assignment.dto.OrderDto;
 import com.middy.assignment.exception.OrderValidationException;
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.metrics.StatisticsMetrics.Outcome;
 import com.middy.assignment.model.Order;
+import com.middy.assignment.tracing.SpanAttributes;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
 
 @Slf4j
 @Component
 public class OrderTransformer {
 
+    // The default stats-period-in-milliseconds, for the convenience constructors
+    private static final int DEFAULT_PERIOD_IN_MILLIS = 60000;
+
     private final Clock clock;
+    private final StatisticsMetrics metrics;
+    private final Tracer tracer;
+    private final int statisticsPeriodInMillis;
 
     public OrderTransformer(Clock clock) {
+        this(clock, StatisticsMetrics.disabled());
+    }
+
+    public OrderTransformer(Clock clock, StatisticsMetrics metrics) {
+        this(clock, metrics, DEFAULT_PERIOD_IN_MILLIS);
+    }
+
+    public OrderTransformer(Clock clock, StatisticsMetrics metrics, int statisticsPeriodInMillis) {
+        this(clock, metrics, OpenTelemetry.noop().getTracer(SpanAttributes.INSTRUMENTATION_SCOPE), statisticsPeriodInMillis);
+    }
+
+    public OrderTransformer(Clock clock, StatisticsMetrics metrics, Tracer tracer) {
+        this(clock, metrics, tracer, DEFAULT_PERIOD_IN_MILLIS);
+    }
+
+    /**
+     * @param tracer                   records the validation span, the no-op tracer unless tracing is enabled
+     * @param statisticsPeriodInMillis window of {@link com.middy.assignment.service.StatisticsModule}; orders that
+     *                                 are already outside it are rejected as old, with the module's boundary
+     */
+    @Autowired
+    public OrderTransformer(Clock clock, StatisticsMetrics metrics, Tracer tracer,
+                            @Value("${stats-period-in-milliseconds}") int statisticsPeriodInMillis) {
         this.clock = clock;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.statisticsPeriodInMillis = statisticsPeriodInMillis;
     }
 
     /**
@@ -31,40 +74,92 @@ public class OrderTransformer {
      * @throws OrderValidationException.OldOrderException if the order timestamp is older than allowed
      */
     public Order validateAndTransformToOrder(OrderDto orderDTO) {
+        return traced(() -> transform(orderDTO));
+    }
+
+    private Order transform(OrderDto orderDTO) {
         if (orderDTO == null || orderDTO.getAmount() == null || orderDTO.getTimestamp() == null) {
+            metrics.ingested(Outcome.INVALID);
             throw new OrderValidationException("JSON is invalid", HttpStatus.BAD_REQUEST);
         }
 
         BigDecimal amount;
-        long orderTime;
         try {
             amount = new BigDecimal(orderDTO.getAmount());
         } catch (NumberFormatException e) {
+            metrics.ingested(Outcome.INVALID);
             throw new OrderValidationException(
                     String.format("Invalid amount as %s", orderDTO.getAmount()),
                     HttpStatus.UNPROCESSABLE_ENTITY
             );
         }
 
+        return toOrder(amount, orderDTO.getTimestamp(), orderDTO.getOrderId());
+    }
+
+    /**
+     * Validates the provided CompactOrderDto and transforms it into an Order object. The amount arrives as an
+     * unscaled integer and a scale, so there is no number to parse; the timestamp is checked as for JSON orders.
+     *
+     * @param orderDTO the CompactOrderDto to validate and transform
+     * @return a valid Order object
+     * @throws OrderValidationException if the input is invalid or contains incorrect data
+     * @throws OrderValidationException.OldOrderException if the order timestamp is older than allowed
+     */
+    public Order validateAndTransformToOrder(CompactOrderDto orderDTO) {
+        return traced(() -> transform(orderDTO));
+    }
+
+    private Order transform(CompactOrderDto orderDTO) {
+        BigDecimal amount = orderDTO == null || orderDTO.getAmount() == null ? null : orderDTO.getAmount().toBigDecimal();
+        if (amount == null || orderDTO.getTimestamp() == null) {
+            metrics.ingested(Outcome.INVALID);
+            throw new OrderValidationException("Body is invalid", HttpStatus.BAD_REQUEST);
+        }
+        return toOrder(amount, orderDTO.getTimestamp(), orderDTO.getOrderId());
+    }
+
+    private Order traced(Supplier<Order> validation) {
+        Span span = tracer.spanBuilder(SpanAttributes.VALIDATE_ORDER).startSpan();
+        try {
+            Order order = validation.get();
+            span.setAttribute(SpanAttributes.OUTCOME, Outcome.ACCEPTED.tag());
+            return order;
+        } catch (OrderValidationException e) {
+            Outcome outcome = e instanceof OrderValidationException.FutureOrderException ? Outcome.FUTURE
+                    : e instanceof OrderValidationException.OldOrderException ? Outcome.OLD
+                    : Outcome.INVALID;
+            span.setAttribute(SpanAttributes.OUTCOME, outcome.tag());
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private Order toOrder(BigDecimal amount, String timestamp, String orderId) {
+        long orderTime;
         // Expected timestamp format: ISO-8601 (e.g., "2023-06-01T12:34:56Z")
         try {
-            orderTime = Instant.parse(orderDTO.getTimestamp()).toEpochMilli();
+            orderTime = Instant.parse(timestamp).toEpochMilli();
         } catch (java.time.format.DateTimeParseException e) {
+            metrics.ingested(Outcome.INVALID);
             throw new OrderValidationException(
-                    String.format("Invalid timestamp format: %s. Expected ISO-8601 format.", orderDTO.getTimestamp()),
+                    String.format("Invalid timestamp format: %s. Expected ISO-8601 format.", timestamp),
                     HttpStatus.UNPROCESSABLE_ENTITY
             );
         }
 
         long now = clock.millis();
         if (orderTime > now) {
+            metrics.ingested(Outcome.FUTURE);
             throw new OrderValidationException.FutureOrderException(now, orderTime);
         }
 
-        if (orderTime < (now - 60000)) {
-            throw new OrderValidationException.OldOrderException(now, orderDTO.getTimestamp());
+        if (orderTime <= now - statisticsPeriodInMillis) {
+            metrics.ingested(Outcome.OLD);
+            throw new OrderValidationException.OldOrderException(now, timestamp);
         }
 
-        return new Order(amount, orderTime);
+        return new Order(amount, orderTime, orderId);
     }
 }
@@ -25,7 +25,7 @@ public class OrderValidationException extends RuntimeException {
 
     public static class OldOrderException extends OrderValidationException {
 
-        private static final String ERROR_MESSAGE = "Order timestamp is older than 60 seconds. Current time %s order timestamp %s";
+        private static final String ERROR_MESSAGE = "Order timestamp is outside the statistics window. Current time %s order timestamp %s";
 
         public OldOrderException(long now, String timestamp) {
             super(
@@ -0,0 +1,31 @@
+package com.middy.assignment.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * An order written into its bucket. The event's duration is the time the bucket's monitor was held, so the threshold
+ * selects slow writes; waiting for the monitor shows up as {@code jdk.JavaMonitorEnter}.
+ */
+@Name(OrderIngestEvent.NAME)
+@Label("Order Ingest")
+@Category({"Order Statistics", "Ingest"})
+@Description("Order added to a bucket; the duration is the time the bucket's lock was held")
+@StackTrace(false)
+@Threshold("1 ms")
+public class OrderIngestEvent extends Event {
+
+    public static final String NAME = "com.middy.assignment.OrderIngest";
+
+    @Label("Bucket Index")
+    public int bucketIndex;
+
+    @Label("Recycled")
+    @Description("Whether the bucket held orders of an earlier period and was reused")
+    public boolean recycled;
+}
@@ -0,0 +1,66 @@
+package com.middy.assignment.jfr;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flight recording started with the application from the shipped {@value #SETTINGS} settings, with the thresholds of
+ * the statistics events taken from {@code stats-jfr-ingest-threshold-in-microseconds} and
+ * {@code stats-jfr-scan-threshold-in-microseconds}. The recording is written to {@code stats-jfr-recording-file} when
+ * the application stops, and can be dumped at any time with {@code jcmd <pid> JFR.dump name=order-statistics}.
+ * <p>
+ * Only created with {@code stats-jfr-recording-enabled: true}. The events are also available to recordings started
+ * from the command line, e.g. {@code -XX:StartFlightRecording:settings=statistics.jfc}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats-jfr-recording-enabled", havingValue = "true")
+public class StatisticsRecording {
+
+    static final String SETTINGS = "jfr/statistics.jfc";
+    static final String RECORDING_NAME = "order-statistics";
+
+    private final Recording recording;
+
+    public StatisticsRecording(@Value("${stats-jfr-ingest-threshold-in-microseconds:1000}") long ingestThresholdMicros,
+                               @Value("${stats-jfr-scan-threshold-in-microseconds:10000}") long scanThresholdMicros,
+                               @Value("${stats-jfr-recording-file:order-statistics.jfr}") String file)
+            throws IOException, ParseException {
+        this.recording = new Recording(loadSettings());
+        recording.setName(RECORDING_NAME);
+        recording.enable(OrderIngestEvent.class).withThreshold(Duration.ofNanos(ingestThresholdMicros * 1000));
+        recording.enable(StatisticsScanEvent.class).withThreshold(Duration.ofNanos(scanThresholdMicros * 1000));
+        recording.setToDisk(true);
+        recording.setDestination(Path.of(file));
+        recording.start();
+        log.info("Flight recording {} started: ingest threshold {} us, scan threshold {} us, written to {} on stop",
+                RECORDING_NAME, ingestThresholdMicros, scanThresholdMicros, file);
+    }
+
+    static Configuration loadSettings() throws IOException, ParseException {
+        try (Reader reader = new InputStreamReader(
+                StatisticsRecording.class.getClassLoader().getResourceAsStream(SETTINGS), StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Writes the recording to its destination
+        recording.stop();
+        recording.close();
+    }
+}
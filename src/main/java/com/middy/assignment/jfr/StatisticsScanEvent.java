@@ -0,0 +1,42 @@
+package com.middy.assignment.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * One computation of the window statistics. The event's duration is the elapsed time of the scan.
+ */
+@Name(StatisticsScanEvent.NAME)
+@Label("Statistics Scan")
+@Category({"Order Statistics", "Query"})
+@Description("Computation of the statistics of a window over every bucket store")
+@StackTrace(false)
+@Threshold("10 ms")
+public class StatisticsScanEvent extends Event {
+
+    public static final String NAME = "com.middy.assignment.StatisticsScan";
+
+    @Label("Period")
+    @Timespan(Timespan.MILLISECONDS)
+    public long period;
+
+    @Label("Buckets Scanned")
+    @Description("Buckets of every store inside the window")
+    public long bucketsScanned;
+
+    @Label("Populated Buckets")
+    @Description("Slots holding orders after the scan dropped the expired ones")
+    public long populatedBuckets;
+
+    @Label("Orders")
+    public long orders;
+
+    @Label("Parallel")
+    public boolean parallel;
+}
@@ -1,23 +0,0 @@
-package com.middy.assignment.logging;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
-
-@Slf4j
-@Component
-public class LogInterceptor implements HandlerInterceptor {
-    @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        log.trace("API Request: {} {}", request.getMethod(), request.getRequestURI());
-        return true;
-    }
-
-    @Override
-    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
-        log.trace("API Response: {} {} Status: {}", request.getMethod(), request.getRequestURI(), response.getStatus());
-    }
-}
-
@@ -0,0 +1,151 @@
+package com.middy.assignment.logging;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sampled request/response tracing.
+ * <p>
+ * A request is traced if it was sampled on arrival, one in {@code stats-trace-sample-rate} ({@code 0} for none), or if
+ * its response status is at least {@code stats-trace-min-status} ({@code 0} for none). The request thread only decides
+ * and enqueues a {@link TraceRecord}; a single writer thread formats it as one JSON line for the {@code request-trace}
+ * logger. When the bounded queue is full the record is dropped and counted in {@code trace.records.dropped}.
+ * <p>
+ * Only created with {@code stats-trace-enabled: true}; otherwise neither the interceptor nor the body advice exists and
+ * requests pay nothing.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats-trace-enabled", havingValue = "true")
+public class RequestTracer {
+
+    static final String TRACE_LOGGER = "request-trace";
+
+    private final int sampleRate;
+    private final int minStatus;
+    private final BlockingQueue<TraceRecord> queue;
+    private final Consumer<String> sink;
+    private final Counter dropped;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Thread writer;
+
+    @Autowired
+    public RequestTracer(MeterRegistry registry,
+                         @Value("${stats-trace-sample-rate:100}") int sampleRate,
+                         @Value("${stats-trace-min-status:500}") int minStatus,
+                         @Value("${stats-trace-queue-capacity:1024}") int queueCapacity) {
+        this(registry, sampleRate, minStatus, queueCapacity, LoggerFactory.getLogger(TRACE_LOGGER)::info);
+    }
+
+    RequestTracer(MeterRegistry registry, int sampleRate, int minStatus, int queueCapacity, Consumer<String> sink) {
+        this.sampleRate = sampleRate;
+        this.minStatus = minStatus;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sink = sink;
+        this.dropped = Counter.builder("trace.records.dropped")
+                .description("Request traces dropped because the writer queue was full")
+                .register(registry);
+        this.writer = new Thread(this::writeRecords, "request-trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Request tracing enabled: 1 in {} requests, status >= {}, queue capacity {}",
+                sampleRate, minStatus, queueCapacity);
+    }
+
+    /**
+     * Decides on arrival whether a request is traced regardless of its status.
+     */
+    boolean sampleRequest() {
+        return sampleRate > 0 && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0);
+    }
+
+    /**
+     * Whether the response body must be kept, which is the case for every request while status-based tracing is on
+     * because the status is only known afterwards.
+     */
+    boolean needsBody(boolean sampled) {
+        return sampled || minStatus > 0;
+    }
+
+    boolean shouldTrace(boolean sampled, int status) {
+        return sampled || (minStatus > 0 && status >= minStatus);
+    }
+
+    /**
+     * Hands {@code record} to the writer thread without blocking.
+     */
+    void submit(TraceRecord record) {
+        if (!queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    private void writeRecords() {
+        try {
+            while (true) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // Shutting down: flush what is already queued
+            for (TraceRecord record = queue.poll(); record != null; record = queue.poll()) {
+                write(record);
+            }
+        }
+    }
+
+    private void write(TraceRecord record) {
+        try {
+            sink.accept(format(record));
+        } catch (RuntimeException e) {
+            log.warn("Could not write request trace for {} {}", record.method(), record.uri(), e);
+        }
+    }
+
+    String format(TraceRecord record) {
+        ObjectNode json = objectMapper.createObjectNode()
+                .put("timestamp", Instant.ofEpochMilli(record.epochMillis()).toString())
+                .put("method", record.method())
+                .put("uri", record.uri())
+                .put("query", record.query())
+                .put("status", record.status())
+                .put("durationMicros", TimeUnit.NANOSECONDS.toMicros(record.durationNanos()))
+                .put("reason", record.reason())
+                .put("exception", record.exception());
+        if (record.body() != null) {
+            json.set("body", bodyNode(record.body()));
+        }
+        return json.toString();
+    }
+
+    private JsonNode bodyNode(Object body) {
+        try {
+            // Pre-serialized bodies are JSON bytes; anything else is a DTO
+            return body instanceof byte[] bytes ? objectMapper.readTree(bytes) : objectMapper.valueToTree(body);
+        } catch (Exception e) {
+            return objectMapper.getNodeFactory().textNode(String.valueOf(body));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -0,0 +1,50 @@
+package com.middy.assignment.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Marks the start of each request and submits a {@link TraceRecord} to the {@link RequestTracer} once the response
+ * status is known. Async requests run through {@link #preHandle} again on redispatch; the first start is kept.
+ */
+@Component
+@ConditionalOnProperty(name = "stats-trace-enabled", havingValue = "true")
+public class TraceInterceptor implements HandlerInterceptor {
+
+    static final String START_ATTRIBUTE = TraceInterceptor.class.getName() + ".start";
+    static final String SAMPLED_ATTRIBUTE = TraceInterceptor.class.getName() + ".sampled";
+    static final String BODY_ATTRIBUTE = TraceInterceptor.class.getName() + ".body";
+
+    private final RequestTracer tracer;
+
+    public TraceInterceptor(RequestTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            if (tracer.sampleRequest()) {
+                request.setAttribute(SAMPLED_ATTRIBUTE, Boolean.TRUE);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        boolean sampled = request.getAttribute(SAMPLED_ATTRIBUTE) != null;
+        int status = response.getStatus();
+        if (!tracer.shouldTrace(sampled, status)) {
+            return;
+        }
+        long start = (Long) request.getAttribute(START_ATTRIBUTE);
+        tracer.submit(new TraceRecord(System.currentTimeMillis(), request.getMethod(), request.getRequestURI(),
+                request.getQueryString(), status, System.nanoTime() - start, sampled ? "sampled" : "status",
+                request.getAttribute(BODY_ATTRIBUTE), ex == null ? null : ex.toString()));
+    }
+}
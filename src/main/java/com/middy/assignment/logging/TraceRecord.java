@@ -0,0 +1,10 @@
+package com.middy.assignment.logging;
+
+/**
+ * One traced request as captured on the request thread; formatting happens later on the writer thread.
+ *
+ * @param body the response body as returned by the handler, or {@code null} if none was written through a converter
+ */
+record TraceRecord(long epochMillis, String method, String uri, String query, int status, long durationNanos,
+                   String reason, Object body, String exception) {
+}
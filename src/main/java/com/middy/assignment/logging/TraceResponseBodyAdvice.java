@@ -0,0 +1,43 @@
+package com.middy.assignment.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Keeps a reference to the response body of requests that may be traced, for {@link TraceInterceptor} to pick up.
+ * The body is only formatted on the tracer's writer thread.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "stats-trace-enabled", havingValue = "true")
+public class TraceResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    private final RequestTracer tracer;
+
+    public TraceResponseBodyAdvice(RequestTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            HttpServletRequest httpRequest = servletRequest.getServletRequest();
+            if (tracer.needsBody(httpRequest.getAttribute(TraceInterceptor.SAMPLED_ATTRIBUTE) != null)) {
+                httpRequest.setAttribute(TraceInterceptor.BODY_ATTRIBUTE, body);
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,140 @@
+package com.middy.assignment.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.middy.assignment.model.OrderRates;
+import com.middy.assignment.model.Rates;
+
+/**
+ * Engine-level meters for the ingest and query path.
+ * <p>
+ * All meters are created once and kept in fields, so the hot path only increments striped counters.
+ * Lock wait time needs two clock reads per order and is therefore only measured for one in
+ * {@code stats-metrics-lock-wait-sample-rate} orders ({@code 0} disables it).
+ */
+@Component
+public class StatisticsMetrics {
+
+    public enum Outcome {
+        ACCEPTED, INVALID, FUTURE, OLD, DUPLICATE, SHED;
+
+        private final String tag = name().toLowerCase();
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Counter[] ingested;
+    private final Counter bucketRecycled;
+    private final Timer scan;
+    private final Counter queryCoalesced;
+    private final Timer lockWait;
+    private final int lockWaitSampleRate;
+
+    public StatisticsMetrics(MeterRegistry registry,
+                             @Value("${stats-metrics-lock-wait-sample-rate:64}") int lockWaitSampleRate) {
+        this.registry = registry;
+        this.lockWaitSampleRate = lockWaitSampleRate;
+        this.ingested = new Counter[Outcome.values().length];
+        for (Outcome outcome : Outcome.values()) {
+            ingested[outcome.ordinal()] = Counter.builder("statistics.orders.ingested")
+                    .description("Orders received by outcome")
+                    .tag("outcome", outcome.tag)
+                    .register(registry);
+        }
+        this.bucketRecycled = Counter.builder("statistics.buckets.recycled")
+                .description("Orders that reused a bucket still holding data from an earlier period")
+                .register(registry);
+        this.scan = Timer.builder("statistics.scan")
+                .description("Time to aggregate the window in getStatistics")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.queryCoalesced = Counter.builder("statistics.queries.coalesced")
+                .description("getStatistics calls that waited for an identical query in flight instead of scanning")
+                .register(registry);
+        this.lockWait = Timer.builder("statistics.bucket.lock.wait")
+                .description("Sampled time spent waiting for a bucket monitor on ingest")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Metrics that are not published anywhere, for components created outside of Spring.
+     */
+    public static StatisticsMetrics disabled() {
+        return new StatisticsMetrics(new CompositeMeterRegistry(), 0);
+    }
+
+    public void ingested(Outcome outcome) {
+        ingested[outcome.ordinal()].increment();
+    }
+
+    public void bucketRecycled() {
+        bucketRecycled.increment();
+    }
+
+    public Timer scanTimer() {
+        return scan;
+    }
+
+    public void queryCoalesced() {
+        queryCoalesced.increment();
+    }
+
+    /**
+     * @return true if the lock wait of the current order should be measured
+     */
+    public boolean sampleLockWait() {
+        return lockWaitSampleRate > 0 && ThreadLocalRandom.current().nextInt(lockWaitSampleRate) == 0;
+    }
+
+    public void lockWaited(long nanos) {
+        lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers a gauge for the share of window buckets currently holding data.
+     */
+    public <T> void registerOccupancy(T source, ToDoubleFunction<T> occupancy) {
+        Gauge.builder("statistics.window.occupancy", source, occupancy)
+                .description("Fraction of the window's millisecond buckets that hold at least one order")
+                .register(registry);
+    }
+
+    /**
+     * Registers a gauge for the probability with which admission currently records an order (1 when exact).
+     */
+    public <T> void registerSamplingProbability(T source, ToDoubleFunction<T> probability) {
+        Gauge.builder("statistics.admission.sampling.probability", source, probability)
+                .description("Probability that an order is recorded; orders kept under sampling carry weight 1/p")
+                .register(registry);
+    }
+
+    /**
+     * Registers gauges for the decayed order and amount rates, tagged with their averaging window. Like every
+     * Micrometer gauge they only hold {@code source} weakly, so it must be an object that outlives the registry.
+     */
+    public <T> void registerRates(T source, Function<T, OrderRates> rates) {
+        registerRates("statistics.orders.rate", "Accepted orders per second", source, s -> rates.apply(s).getOrders());
+        registerRates("statistics.amount.rate", "Amount of accepted orders per second", source, s -> rates.apply(s).getAmount());
+    }
+
+    private <T> void registerRates(String name, String description, T source, Function<T, Rates> rates) {
+        Gauge.builder(name, source, s -> rates.apply(s).getOneMinute()).description(description).tag("window", "1m").register(registry);
+        Gauge.builder(name, source, s -> rates.apply(s).getFiveMinute()).description(description).tag("window", "5m").register(registry);
+        Gauge.builder(name, source, s -> rates.apply(s).getFifteenMinute()).description(description).tag("window", "15m").register(registry);
+    }
+}
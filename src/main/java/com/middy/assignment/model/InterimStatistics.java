@@ -1,6 +1,7 @@
 package com.middy.assignment.model;
 
 import java.math.BigDecimal;
+import java.util.function.Consumer;
 
 import lombok.Getter;
 import lombok.ToString;
@@ -13,10 +14,19 @@ public class InterimStatistics {
 
     private static final Logger log = LoggerFactory.getLogger(InterimStatistics.class);
     private volatile long timestamp = 0;
+    // Incremented by deleteAllOrders; content of an older generation than the module's is treated as empty
+    private volatile long generation = 0;
     private long count = 0;
     private BigDecimal sum = BigDecimal.ZERO;
     private BigDecimal max = BigDecimal.valueOf(Double.MIN_VALUE);
     private BigDecimal min = BigDecimal.valueOf(Double.MAX_VALUE);
+    // Running mean and sum of squared deviations from it (Welford), for the variance of the amounts
+    private double mean = 0;
+    private double m2 = 0;
+    // Set once an amount was added with a weight above 1, so count and sum are estimates
+    private boolean sampled = false;
+    // Set once the content has been handed to the expiry listener, so it is never archived twice
+    private boolean archived = false;
 
     public synchronized void reset(long newTimestamp) {
         log.debug("Resetting InterimStatistics at timestamp: {} to {}", this.timestamp, newTimestamp);
@@ -25,26 +35,203 @@ public class InterimStatistics {
         this.max = BigDecimal.ZERO;
         this.min = BigDecimal.valueOf(Double.MAX_VALUE);
         this.count = 0;
+        this.mean = 0;
+        this.m2 = 0;
+        this.sampled = false;
+        this.archived = false;
     }
 
-    public synchronized void add(Order newOrder) {
+    public boolean add(Order newOrder) {
+        return add(newOrder, null);
+    }
+
+    /**
+     * Adds the order to the bucket tagged with its own timestamp.
+     *
+     * @see #add(long, BigDecimal, Consumer)
+     */
+    public boolean add(Order newOrder, Consumer<InterimStatistics> onExpire) {
+        return add(newOrder.getTimestamp(), newOrder.getAmount(), onExpire);
+    }
+
+    /**
+     * Adds an amount to this bucket in generation {@code 0}.
+     *
+     * @see #add(long, long, BigDecimal, Consumer)
+     */
+    public boolean add(long slotTimestamp, BigDecimal amount, Consumer<InterimStatistics> onExpire) {
+        return add(0L, slotTimestamp, amount, onExpire);
+    }
+
+    /**
+     * Adds an amount to this bucket, which represents the slot starting at {@code slotTimestamp}. If the bucket
+     * still holds data for a different slot which has not been archived yet, that data is handed to
+     * {@code onExpire} (while holding this bucket's monitor) before the bucket is recycled.
+     * <p>
+     * Data of an older generation has been deleted and is discarded without archiving. An amount of an older
+     * generation than the bucket's is dropped, as it belongs to orders deleted before they were written.
+     *
+     * @return true if the bucket held orders of a different slot of the same generation and was recycled
+     */
+    public boolean add(long generation, long slotTimestamp, BigDecimal amount, Consumer<InterimStatistics> onExpire) {
+        return add(generation, slotTimestamp, amount, 1L, onExpire);
+    }
+
+    /**
+     * Adds an amount standing for {@code weight} orders, as recorded when ingest is sampled, so count and sum stay
+     * unbiased estimates. Min and max see the amount once.
+     *
+     * @see #add(long, long, BigDecimal, Consumer)
+     */
+    public synchronized boolean add(long generation, long slotTimestamp, BigDecimal amount, long weight,
+                                    Consumer<InterimStatistics> onExpire) {
+        if (generation < this.generation) {
+            return false;
+        }
+        boolean recycled = false;
+        if (generation > this.generation) {
+            this.generation = generation;
+            recycle(slotTimestamp);
+        }
         // Initialize timestamp if this is the first order
-        if (this.timestamp == 0) {
-            this.timestamp = newOrder.getTimestamp();
+        else if (this.timestamp == 0) {
+            this.timestamp = slotTimestamp;
         }
-        // Reset statistics if order is for a different timestamp
-        else if (this.timestamp != newOrder.getTimestamp()) {
-            this.timestamp = newOrder.getTimestamp();
-            this.sum = BigDecimal.ZERO;
-            this.max = BigDecimal.valueOf(Double.MIN_VALUE);
-            this.min = BigDecimal.valueOf(Double.MAX_VALUE);
-            this.count = 0;
+        // Reset statistics if order is for a different slot
+        else if (this.timestamp != slotTimestamp) {
+            recycled = this.count > 0;
+            archive(this.generation, this.timestamp, onExpire);
+            recycle(slotTimestamp);
         }
 
         // Update statistics
+        addAmount(amount, weight);
+        return recycled;
+    }
+
+    /**
+     * Adds a single amount to this bucket, which represents the slot starting at {@code slotTimestamp} in
+     * {@code generation}. Recycling follows the same rules as {@link #merge(long, InterimStatistics)}, with
+     * older generations ordered before newer ones.
+     */
+    public void accumulate(long generation, long slotTimestamp, BigDecimal amount) {
+        accumulate(generation, slotTimestamp, amount, 1L);
+    }
+
+    /**
+     * Adds an amount standing for {@code weight} orders like {@link #accumulate(long, long, BigDecimal)}.
+     */
+    public synchronized void accumulate(long generation, long slotTimestamp, BigDecimal amount, long weight) {
+        if (generation < this.generation || (generation == this.generation && slotTimestamp < this.timestamp)) {
+            return;
+        }
+        if (generation != this.generation || this.timestamp != slotTimestamp) {
+            this.generation = generation;
+            recycle(slotTimestamp);
+        }
+        addAmount(amount, weight);
+    }
+
+    private void addAmount(BigDecimal amount, long weight) {
+        if (weight != 1) {
+            this.sampled = true;
+            // weight equal amounts: a group with mean amount and no spread
+            merge(weight, amount.multiply(BigDecimal.valueOf(weight)), amount, amount, amount.doubleValue(), 0);
+            return;
+        }
         this.count++;
-        this.sum = this.sum.add(newOrder.getAmount());
-        this.min = this.min.min(newOrder.getAmount());
-        this.max = this.max.max(newOrder.getAmount());
+        this.sum = this.sum.add(amount);
+        this.min = this.min.min(amount);
+        this.max = this.max.max(amount);
+        double value = amount.doubleValue();
+        double delta = value - this.mean;
+        this.mean += delta / this.count;
+        this.m2 += delta * (value - this.mean);
+    }
+
+    /**
+     * Merges the aggregates of {@code other} into this bucket, which represents the slot starting at
+     * {@code slotTimestamp}. A bucket holding an older slot is recycled first, while data for a slot older
+     * than the one currently held is dropped. The caller must hold {@code other}'s monitor if it can be
+     * modified concurrently.
+     */
+    public synchronized void merge(long slotTimestamp, InterimStatistics other) {
+        if (slotTimestamp < this.timestamp) {
+            return;
+        }
+        if (this.timestamp != slotTimestamp) {
+            recycle(slotTimestamp);
+        }
+        this.sampled |= other.sampled;
+        merge(other.count, other.sum, other.min, other.max, other.mean, other.m2);
+    }
+
+    /**
+     * Merges partial aggregates into this bucket without checking its slot. Nothing is merged if {@code count} is 0.
+     *
+     * @param mean mean of the merged amounts
+     * @param m2   sum of squared deviations of the merged amounts from {@code mean}
+     */
+    public synchronized void merge(long count, BigDecimal sum, BigDecimal min, BigDecimal max, double mean, double m2) {
+        if (count == 0) {
+            return;
+        }
+        this.m2 = mergeM2(this.count, this.mean, this.m2, count, mean, m2);
+        this.mean = mergeMean(this.count, this.mean, count, mean);
+        this.count += count;
+        this.sum = this.sum.add(sum);
+        this.min = this.min.min(min);
+        this.max = this.max.max(max);
+    }
+
+    /**
+     * Mean of two groups of {@code count} and {@code otherCount} amounts.
+     */
+    public static double mergeMean(long count, double mean, long otherCount, double otherMean) {
+        if (count == 0) {
+            return otherMean;
+        }
+        return mean + (otherMean - mean) * ((double) otherCount / (count + otherCount));
+    }
+
+    /**
+     * Sum of squared deviations from the mean of two groups, from the sums of each group around its own mean
+     * (Chan et al.), which stays accurate where subtracting sums of squares would cancel.
+     */
+    public static double mergeM2(long count, double mean, double m2, long otherCount, double otherMean, double otherM2) {
+        if (count == 0) {
+            return otherM2;
+        }
+        double delta = otherMean - mean;
+        return m2 + otherM2 + delta * delta * ((double) count * otherCount / (count + otherCount));
+    }
+
+    /**
+     * Hands the content of this bucket to {@code onExpire} if it still belongs to {@code expectedTimestamp} in
+     * {@code expectedGeneration}, holds at least one order and has not been archived before.
+     *
+     * @return true if the bucket was archived by this call
+     */
+    public synchronized boolean archive(long expectedGeneration, long expectedTimestamp,
+                                        Consumer<InterimStatistics> onExpire) {
+        if (onExpire == null || archived || count == 0 || this.generation != expectedGeneration
+                || this.timestamp != expectedTimestamp) {
+            return false;
+        }
+        onExpire.accept(this);
+        archived = true;
+        return true;
+    }
+
+    private void recycle(long slotTimestamp) {
+        this.timestamp = slotTimestamp;
+        this.sum = BigDecimal.ZERO;
+        this.max = BigDecimal.valueOf(Double.MIN_VALUE);
+        this.min = BigDecimal.valueOf(Double.MAX_VALUE);
+        this.count = 0;
+        this.mean = 0;
+        this.m2 = 0;
+        this.sampled = false;
+        this.archived = false;
     }
 }
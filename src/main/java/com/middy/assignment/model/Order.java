@@ -14,4 +14,9 @@ import lombok.ToString;
 public class Order {
     BigDecimal amount;
     long timestamp;
+    String orderId;
+
+    public Order(BigDecimal amount, long timestamp) {
+        this(amount, timestamp, null);
+    }
 }
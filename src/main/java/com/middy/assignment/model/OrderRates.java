@@ -0,0 +1,14 @@
+package com.middy.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Decayed rates of accepted orders: orders per second and order amount per second.
+ */
+@AllArgsConstructor
+@Getter
+public class OrderRates {
+    private Rates orders;
+    private Rates amount;
+}
@@ -0,0 +1,15 @@
+package com.middy.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Exponentially weighted moving averages of a per-second rate over one, five and fifteen minutes.
+ */
+@AllArgsConstructor
+@Getter
+public class Rates {
+    private double oneMinute;
+    private double fiveMinute;
+    private double fifteenMinute;
+}
@@ -1,6 +1,7 @@
 package com.middy.assignment.model;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -8,9 +9,62 @@ import lombok.Getter;
 @AllArgsConstructor
 @Getter
 public class Statistics {
+
+    public static final int STATS_SCALE = 2;
+    private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(STATS_SCALE, RoundingMode.HALF_UP);
+
     private BigDecimal sum;
     private BigDecimal avg;
     private BigDecimal max;
     private BigDecimal min;
     private long count;
+    private BigDecimal variance;
+    private BigDecimal stddev;
+    // Set when the window holds orders recorded under sampled ingest, so count and sum are unbiased estimates
+    private boolean estimated;
+
+    /**
+     * Statistics with a variance and standard deviation of zero, as for orders of equal amounts.
+     */
+    public Statistics(BigDecimal sum, BigDecimal avg, BigDecimal max, BigDecimal min, long count) {
+        this(sum, avg, max, min, count, ZERO, ZERO);
+    }
+
+    public Statistics(BigDecimal sum, BigDecimal avg, BigDecimal max, BigDecimal min, long count, BigDecimal variance,
+                      BigDecimal stddev) {
+        this(sum, avg, max, min, count, variance, stddev, false);
+    }
+
+    /**
+     * Returns these statistics flagged as estimated.
+     */
+    public Statistics asEstimated() {
+        return estimated ? this : new Statistics(sum, avg, max, min, count, variance, stddev, true);
+    }
+
+    /**
+     * Builds the public statistics view from raw aggregates, applying the {@link #STATS_SCALE} rounding.
+     * When {@code count} is zero the min/max arguments are ignored and every value is reported as zero.
+     * The variance is the population variance {@code m2 / count} of the amounts. Amounts beyond the {@code double}
+     * range, or far enough apart that their squared deviations are, leave {@code m2} infinite or NaN; variance and
+     * standard deviation are then {@code null} while the other values stay exact.
+     *
+     * @param m2 sum of squared deviations of the amounts from their mean
+     */
+    public static Statistics of(BigDecimal sum, long count, BigDecimal min, BigDecimal max, double m2) {
+        if (count == 0) {
+            return new Statistics(sum.setScale(STATS_SCALE, RoundingMode.HALF_UP), ZERO, ZERO, ZERO, 0);
+        }
+        BigDecimal scaledSum = sum.setScale(STATS_SCALE, RoundingMode.HALF_UP);
+        BigDecimal avg = scaledSum.divide(BigDecimal.valueOf(count), STATS_SCALE, RoundingMode.HALF_UP);
+        // Rounding may leave a tiny negative sum for equal amounts
+        double variance = Math.max(0, m2 / count);
+        boolean finite = Double.isFinite(variance);
+        return new Statistics(scaledSum, avg,
+                max.setScale(STATS_SCALE, RoundingMode.HALF_UP),
+                min.setScale(STATS_SCALE, RoundingMode.HALF_UP),
+                count,
+                finite ? BigDecimal.valueOf(variance).setScale(STATS_SCALE, RoundingMode.HALF_UP) : null,
+                finite ? BigDecimal.valueOf(Math.sqrt(variance)).setScale(STATS_SCALE, RoundingMode.HALF_UP) : null);
+    }
 }
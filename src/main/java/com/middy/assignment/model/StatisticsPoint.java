@@ -0,0 +1,14 @@
+package com.middy.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Statistics aggregated over the interval starting at {@code timestamp} (epoch millis).
+ */
+@AllArgsConstructor
+@Getter
+public class StatisticsPoint {
+    private long timestamp;
+    private Statistics statistics;
+}
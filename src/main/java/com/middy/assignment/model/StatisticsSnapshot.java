@@ -0,0 +1,17 @@
+package com.middy.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Statistics of the window together with the window version they were computed at and their JSON encoding,
+ * so a snapshot served many times is serialized once.
+ */
+@AllArgsConstructor
+@Getter
+public class StatisticsSnapshot {
+    private long version;
+    private Statistics statistics;
+    // UTF-8 JSON body of the statistics; shared, callers must not modify it
+    private byte[] json;
+}
@@ -0,0 +1,147 @@
+package com.middy.assignment.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.metrics.StatisticsMetrics.Outcome;
+
+/**
+ * Admission in front of {@link StatisticsModule#addOrder(com.middy.assignment.model.Order, long)} that switches ingest
+ * to sampling while orders queue, and back to exact recording once the queue drains.
+ * <p>
+ * Requests waiting in Tomcat are not timestamped, so the controller owns the queue it measures: at most
+ * {@code maxConcurrency} orders are recorded at a time and the wait for a permit is the queueing delay. As in CoDel, a
+ * standing queue is the minimum delay of an interval: if it stays above the target for a whole interval, the sampling
+ * level rises by one and only 1 in {@code 2^level} orders is recorded, with weight {@code 2^level}, so count and sum
+ * remain unbiased. Every interval whose minimum is within the target lowers the level again, as does every interval
+ * without orders, down to exact recording at level 0. Orders that are not sampled are acknowledged without being
+ * recorded and never wait for a permit.
+ * <p>
+ * The interval minimum is collected without a lock, so an order finishing while the interval closes may count towards
+ * the next one.
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    private final boolean enabled;
+    private final Semaphore permits;
+    private final long targetDelayNanos;
+    private final long intervalNanos;
+    private final int maxLevel;
+    private final StatisticsMetrics metrics;
+
+    private final LongAccumulator intervalMinDelay = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final AtomicLong intervalEnd;
+    private volatile int level;
+
+    public AdmissionController(boolean enabled, int maxConcurrency, long targetDelayMicros, long intervalMillis,
+                               int maxLevel) {
+        this(enabled, maxConcurrency, targetDelayMicros, intervalMillis, maxLevel, StatisticsMetrics.disabled());
+    }
+
+    /**
+     * @param maxConcurrency orders recorded at the same time, {@code 0} for one per available processor
+     * @param maxLevel       highest sampling level, i.e. at least 1 in {@code 2^maxLevel} orders is recorded
+     */
+    @Autowired
+    public AdmissionController(@Value("${stats-admission-enabled:false}") boolean enabled,
+                               @Value("${stats-admission-max-concurrency:0}") int maxConcurrency,
+                               @Value("${stats-admission-target-delay-in-microseconds:5000}") long targetDelayMicros,
+                               @Value("${stats-admission-interval-in-milliseconds:100}") long intervalMillis,
+                               @Value("${stats-admission-max-sampling-level:10}") int maxLevel,
+                               StatisticsMetrics metrics) {
+        if (maxConcurrency < 0 || targetDelayMicros <= 0 || intervalMillis <= 0 || maxLevel < 0 || maxLevel > 30) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid admission settings: concurrency %d, target %d us, interval %d ms, max level %d",
+                    maxConcurrency, targetDelayMicros, intervalMillis, maxLevel));
+        }
+        this.enabled = enabled;
+        this.permits = new Semaphore(maxConcurrency == 0 ? Runtime.getRuntime().availableProcessors() : maxConcurrency);
+        this.targetDelayNanos = TimeUnit.MICROSECONDS.toNanos(targetDelayMicros);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.maxLevel = maxLevel;
+        this.metrics = metrics;
+        this.intervalEnd = new AtomicLong(System.nanoTime() + intervalNanos);
+        metrics.registerSamplingProbability(this, AdmissionController::getSamplingProbability);
+        log.info("AdmissionController initialized, enabled: {}, permits: {}, target delay: {} us",
+                enabled, permits.availablePermits(), targetDelayMicros);
+    }
+
+    /**
+     * Decides whether the current order is recorded and waits for a permit if so.
+     *
+     * @return the weight to record the order with, or {@code 0} if it is shed; a positive weight obliges the caller
+     * to {@link #release()} once the order is recorded
+     */
+    public long admit() {
+        if (!enabled) {
+            return 1;
+        }
+        int current = level;
+        if (current > 0 && ThreadLocalRandom.current().nextInt(1 << current) != 0) {
+            metrics.ingested(Outcome.SHED);
+            return 0;
+        }
+        long waitStart = System.nanoTime();
+        permits.acquireUninterruptibly();
+        long admitted = System.nanoTime();
+        observe(admitted - waitStart, admitted);
+        return 1L << current;
+    }
+
+    public void release() {
+        if (enabled) {
+            permits.release();
+        }
+    }
+
+    public boolean isSampling() {
+        return level > 0;
+    }
+
+    /**
+     * Probability with which an order is currently recorded, {@code 1} in exact mode.
+     */
+    public double getSamplingProbability() {
+        return 1.0 / (1L << level);
+    }
+
+    /**
+     * Records the queueing delay of an order admitted at {@code nowNanos} and closes the interval if it has ended.
+     */
+    void observe(long delayNanos, long nowNanos) {
+        intervalMinDelay.accumulate(delayNanos);
+        long end = intervalEnd.get();
+        if (nowNanos - end < 0 || !intervalEnd.compareAndSet(end, nowNanos + intervalNanos)) {
+            return;
+        }
+        long minDelay = intervalMinDelay.getThenReset();
+        // Intervals that passed without any order count as drained
+        long idleIntervals = (nowNanos - end) / intervalNanos;
+        int previous = level;
+        int next = minDelay > targetDelayNanos && idleIntervals == 0
+                ? Math.min(previous + 1, maxLevel)
+                : (int) Math.max(0, previous - 1 - idleIntervals);
+        if (next != previous) {
+            level = next;
+            if (previous == 0) {
+                log.warn("Ingest queueing delay {} us above target, sampling 1 in {} orders",
+                        TimeUnit.NANOSECONDS.toMicros(minDelay), 1L << next);
+            } else if (next == 0) {
+                log.info("Ingest queue drained, recording every order again");
+            } else {
+                log.debug("Sampling 1 in {} orders", 1L << next);
+            }
+        }
+    }
+}
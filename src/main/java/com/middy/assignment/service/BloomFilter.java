@@ -0,0 +1,91 @@
+package com.middy.assignment.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings for {@link OrderDeduplicator}.
+ * <p>
+ * Sized for {@code expectedInsertions} at {@code falsePositiveRate}; past that the rate degrades but memory does not
+ * grow. Bits are set with a CAS per word, so concurrent inserts never lose bits. Two threads inserting the same key at
+ * the same moment may both see it as new, the same as two requests racing past any check-then-act.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.max(1, (optimalBits + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds {@code key} and returns {@code true} if it was (probably) absent, {@code false} if it may have been added before.
+     */
+    boolean put(String key) {
+        long hash = hash(key);
+        long h1 = hash;
+        // Second hash from the upper bits, forced odd so the probe sequence visits distinct bits (Kirsch-Mitzenmacher)
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            changed |= setBit(bit);
+        }
+        return changed;
+    }
+
+    /**
+     * Returns {@code false} if {@code key} was definitely never added, {@code true} if it may have been.
+     */
+    boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = Long.rotateLeft(h1, 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long sizeInBits() {
+        return bits;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    private boolean setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        return true;
+    }
+
+    // FNV-1a over the UTF-16 code units, finished with the MurmurHash3 64-bit mixer
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,386 @@
+package com.middy.assignment.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import com.middy.assignment.jfr.OrderIngestEvent;
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.model.InterimStatistics;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.tracing.SpanAttributes;
+
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * One circular buffer of buckets with its range index and, with exact boundaries, its per-millisecond edge buffer.
+ * <p>
+ * {@link StatisticsModule} keeps one store per shard and routes each request thread to a single store, so threads
+ * of different shards never write the same bucket. Alignment of timestamps to buckets is left to the module.
+ * <p>
+ * The tag and generation of every bucket are mirrored in primitive columns, written under the bucket's monitor with
+ * release semantics, and an occupancy bitmap holds one bit per slot that has been written and not found stale since.
+ * A scan walks the bitmap a word at a time, skipping empty words, and selects the occupied slots inside the window
+ * from the columns: bit by bit for sparse words, with {@link WindowMask} (vectorized where available) for dense ones.
+ * Only those buckets are locked and re-checked before their amounts are added, so the cost of a query follows the
+ * number of occupied slots rather than the window size. Bits of expired or deleted buckets are cleared as the scan
+ * meets them. The amounts themselves are arbitrary-precision {@link BigDecimal}s, accumulated one bucket at a time.
+ */
+class BucketStore {
+
+    static final WindowMask WINDOW_MASK = WindowMask.create();
+
+    // Occupied slots in a bitmap word from which the window mask beats testing bit by bit
+    private static final int DENSE_WORD_BITS = 16;
+
+    private static final VarHandle COLUMN = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int resolutionInMillis;
+
+    private final AtomicReferenceArray<InterimStatistics> buckets;
+
+    // Per-millisecond buckets for the partially covered edges; null unless exact boundaries are enabled
+    private final AtomicReferenceArray<InterimStatistics> edges;
+
+    private final StatisticsRangeIndex rangeIndex;
+
+    private final long[] tagColumn;
+
+    private final long[] generationColumn;
+
+    // Bit i of word i / 64 is set while slot i may hold orders; only changed under slot i's monitor
+    private final long[] occupancy;
+
+    BucketStore(int periodInMillis, int resolutionInMillis, boolean exactBoundaries) {
+        this.resolutionInMillis = resolutionInMillis;
+        this.buckets = newBuffer(periodInMillis / resolutionInMillis + 1);
+        this.edges = exactBoundaries && resolutionInMillis > 1 ? newBuffer(periodInMillis + 1) : null;
+        this.rangeIndex = new StatisticsRangeIndex(buckets, resolutionInMillis, periodInMillis);
+        this.tagColumn = new long[buckets.length()];
+        this.generationColumn = new long[buckets.length()];
+        this.occupancy = new long[(buckets.length() + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    private static AtomicReferenceArray<InterimStatistics> newBuffer(int size) {
+        AtomicReferenceArray<InterimStatistics> buffer = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            buffer.set(i, new InterimStatistics());
+        }
+        return buffer;
+    }
+
+    /**
+     * Adds the order, standing for {@code weight} orders, to the bucket starting at {@code bucketStart}, to its edge
+     * bucket and to the range index.
+     *
+     * @return true if the bucket held orders of an earlier period and was recycled
+     */
+    boolean add(long generation, long bucketStart, Order order, long weight, Consumer<InterimStatistics> onExpire,
+                StatisticsMetrics metrics, Span span) {
+        int index = indexOf(bucketStart);
+        InterimStatistics bucket = buckets.get(index);
+        boolean sampleLockWait = metrics.sampleLockWait();
+        boolean traced = span.isRecording();
+        long waitStart = sampleLockWait || traced ? System.nanoTime() : 0L;
+        long waited = 0L;
+        boolean recycled;
+        OrderIngestEvent event = new OrderIngestEvent();
+        synchronized (bucket) {
+            if (sampleLockWait || traced) {
+                waited = System.nanoTime() - waitStart;
+            }
+            event.begin();
+            recycled = bucket.add(generation, bucketStart, order.getAmount(), weight, onExpire);
+            // Mirror the bucket's state, which differs from the arguments if the order was dropped
+            COLUMN.setRelease(tagColumn, index, bucket.getTimestamp());
+            COLUMN.setRelease(generationColumn, index, bucket.getGeneration());
+            // Every change to this bit happens under this monitor, so the plain read is current
+            if ((occupancy[index >>> 6] & (1L << index)) == 0) {
+                COLUMN.getAndBitwiseOr(occupancy, index >>> 6, 1L << index);
+            }
+            event.end();
+        }
+        if (event.shouldCommit()) {
+            event.bucketIndex = index;
+            event.recycled = recycled;
+            event.commit();
+        }
+        if (sampleLockWait) {
+            metrics.lockWaited(waited);
+        }
+        if (traced) {
+            span.setAttribute(SpanAttributes.BUCKET_INDEX, index);
+            span.setAttribute(SpanAttributes.LOCK_WAIT_NANOS, waited);
+        }
+        if (edges != null) {
+            edges.get((int) (order.getTimestamp() % edges.length()))
+                    .add(generation, order.getTimestamp(), order.getAmount(), weight, null);
+        }
+        rangeIndex.add(generation, order.getTimestamp(), order.getAmount(), weight);
+        return recycled;
+    }
+
+    /**
+     * Merges every bucket of {@code generation} starting in {@code [firstBucket, lastBucket]} into {@code target}.
+     * Occupancy bits of buckets of an older generation or starting at or before {@code expiredUpTo} are cleared.
+     */
+    void scan(long generation, long firstBucket, long lastBucket, long expiredUpTo, InterimStatistics target) {
+        scan(generation, firstBucket, lastBucket, expiredUpTo, 0, buckets.length(), target);
+    }
+
+    /**
+     * Returns a task that scans this store like {@link #scan(long, long, long, long, InterimStatistics)}, splitting
+     * the buffer into ranges of at most {@code chunkSize} slots that are reduced in parallel.
+     */
+    ForkJoinTask<InterimStatistics> scanTask(long generation, long firstBucket, long lastBucket, long expiredUpTo,
+                                             int chunkSize) {
+        return new ScanTask(generation, firstBucket, lastBucket, expiredUpTo, 0, buckets.length(), chunkSize);
+    }
+
+    private void scan(long generation, long firstBucket, long lastBucket, long expiredUpTo, int fromIndex, int toIndex,
+                      InterimStatistics target) {
+        BigDecimal sum = BigDecimal.ZERO;
+        long count = 0;
+        BigDecimal currentMin = BigDecimal.valueOf(Double.MAX_VALUE);
+        BigDecimal currentMax = BigDecimal.ZERO;
+        double mean = 0;
+        double m2 = 0;
+
+        int[] selected = new int[Long.SIZE];
+        // Pairs with the release writes in add, so every column write of an earlier add is visible
+        VarHandle.acquireFence();
+        for (int base = fromIndex & -Long.SIZE; base < toIndex; base += Long.SIZE) {
+            long occupied = (long) COLUMN.getAcquire(occupancy, base >>> 6) & rangeMask(base, fromIndex, toIndex);
+            if (occupied == 0) {
+                continue;
+            }
+
+            long members = 0;
+            if (Long.bitCount(occupied) >= DENSE_WORD_BITS) {
+                int selectedCount = WINDOW_MASK.select(tagColumn, generationColumn, Math.max(base, fromIndex),
+                        Math.min(base + Long.SIZE, toIndex), generation, firstBucket, lastBucket, selected);
+                for (int k = 0; k < selectedCount; k++) {
+                    members |= 1L << selected[k];
+                }
+            } else {
+                for (long bits = occupied; bits != 0; bits &= bits - 1) {
+                    int index = base + Long.numberOfTrailingZeros(bits);
+                    long tag = tagColumn[index];
+                    if (generationColumn[index] == generation && firstBucket <= tag && tag <= lastBucket) {
+                        members |= 1L << index;
+                    }
+                }
+            }
+
+            for (long bits = members; bits != 0; bits &= bits - 1) {
+                InterimStatistics stat = buckets.get(base + Long.numberOfTrailingZeros(bits));
+                synchronized (stat) {
+                    long timestamp = stat.getTimestamp();
+                    if (stat.getGeneration() == generation && firstBucket <= timestamp && timestamp <= lastBucket) {
+                        sum = sum.add(stat.getSum());
+                        m2 = InterimStatistics.mergeM2(count, mean, m2, stat.getCount(), stat.getMean(), stat.getM2());
+                        mean = InterimStatistics.mergeMean(count, mean, stat.getCount(), stat.getMean());
+                        count += stat.getCount();
+                        currentMin = stat.getMin().min(currentMin);
+                        currentMax = stat.getMax().max(currentMax);
+                    }
+                }
+            }
+            for (long bits = occupied & ~members; bits != 0; bits &= bits - 1) {
+                int index = base + Long.numberOfTrailingZeros(bits);
+                if (generationColumn[index] < generation || tagColumn[index] <= expiredUpTo) {
+                    clearIfStale(index, generation, expiredUpTo);
+                }
+            }
+        }
+        target.merge(count, sum, currentMin, currentMax, mean, m2);
+    }
+
+    /**
+     * Merges every bucket of {@code generation} starting in {@code [firstBucket, lastBucket]} into the point of
+     * {@code stepMillis} it falls in, where {@code points[i]} covers the step starting at
+     * {@code firstPoint + i * stepMillis}. Walks the occupancy bitmap once, like {@link #scan}, without clearing bits.
+     */
+    void scanSeries(long generation, long firstBucket, long lastBucket, long firstPoint, long stepMillis,
+                    InterimStatistics[] points) {
+        VarHandle.acquireFence();
+        for (int word = 0; word < occupancy.length; word++) {
+            for (long bits = (long) COLUMN.getAcquire(occupancy, word); bits != 0; bits &= bits - 1) {
+                int index = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                long tag = tagColumn[index];
+                if (generationColumn[index] != generation || tag < firstBucket || tag > lastBucket) {
+                    continue;
+                }
+                InterimStatistics stat = buckets.get(index);
+                synchronized (stat) {
+                    long timestamp = stat.getTimestamp();
+                    if (stat.getGeneration() == generation && firstBucket <= timestamp && timestamp <= lastBucket) {
+                        points[(int) ((timestamp - firstPoint) / stepMillis)].merge(0L, stat);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the earliest time at which an order of {@code generation} counted in the window starting after
+     * {@code windowStart} leaves it, or {@link Long#MAX_VALUE} if there is none. Buckets count while their start is
+     * inside the window; with exact boundaries the partially expired oldest bucket counts per millisecond.
+     */
+    long nextExpiry(long generation, long windowStart, int periodInMillis) {
+        long next = Long.MAX_VALUE;
+        VarHandle.acquireFence();
+        for (int word = 0; word < occupancy.length; word++) {
+            for (long bits = (long) COLUMN.getAcquire(occupancy, word); bits != 0; bits &= bits - 1) {
+                int index = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                long tag = tagColumn[index];
+                if (generationColumn[index] != generation) {
+                    continue;
+                }
+                if (tag > windowStart) {
+                    next = Math.min(next, tag + periodInMillis);
+                } else if (edges != null && tag + resolutionInMillis - 1 > windowStart) {
+                    long oldest = oldestMillis(generation, windowStart + 1, tag + resolutionInMillis);
+                    if (oldest != Long.MAX_VALUE) {
+                        next = Math.min(next, oldest + periodInMillis);
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    private long oldestMillis(long generation, long from, long to) {
+        for (long t = from; t < to; t++) {
+            InterimStatistics stat = edges.get((int) (t % edges.length()));
+            synchronized (stat) {
+                if (stat.getGeneration() == generation && stat.getTimestamp() == t && stat.getCount() > 0) {
+                    return t;
+                }
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Bits of the word starting at slot {@code base} that lie within {@code [fromIndex, toIndex)}.
+     */
+    private static long rangeMask(int base, int fromIndex, int toIndex) {
+        long mask = -1L;
+        if (base < fromIndex) {
+            mask &= -1L << (fromIndex - base);
+        }
+        if (toIndex - base < Long.SIZE) {
+            mask &= (1L << (toIndex - base)) - 1;
+        }
+        return mask;
+    }
+
+    private void clearIfStale(int index, long generation, long expiredUpTo) {
+        InterimStatistics bucket = buckets.get(index);
+        synchronized (bucket) {
+            if (bucket.getGeneration() < generation || bucket.getTimestamp() <= expiredUpTo) {
+                COLUMN.getAndBitwiseAnd(occupancy, index >>> 6, ~(1L << index));
+            }
+        }
+    }
+
+    /**
+     * Merges the orders of {@code generation} in {@code [from, to)} into {@code target} using the range index.
+     * Both bounds must be multiples of the resolution.
+     */
+    void aggregateBuckets(long generation, long from, long to, InterimStatistics target) {
+        if (from < to) {
+            rangeIndex.aggregate(generation, from, to, target);
+        }
+    }
+
+    /**
+     * Merges the per-millisecond edge buckets of {@code generation} in {@code [from, to)} into {@code target}.
+     */
+    void aggregateMillis(long generation, long from, long to, InterimStatistics target) {
+        for (long t = from; t < to; t++) {
+            InterimStatistics stat = edges.get((int) (t % edges.length()));
+            synchronized (stat) {
+                if (stat.getGeneration() == generation && stat.getTimestamp() == t && stat.getCount() > 0) {
+                    target.merge(0L, stat);
+                }
+            }
+        }
+    }
+
+    private class ScanTask extends RecursiveTask<InterimStatistics> {
+
+        private final long generation;
+        private final long firstBucket;
+        private final long lastBucket;
+        private final long expiredUpTo;
+        private final int fromIndex;
+        private final int toIndex;
+        private final int chunkSize;
+
+        ScanTask(long generation, long firstBucket, long lastBucket, long expiredUpTo, int fromIndex, int toIndex,
+                 int chunkSize) {
+            this.generation = generation;
+            this.firstBucket = firstBucket;
+            this.lastBucket = lastBucket;
+            this.expiredUpTo = expiredUpTo;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected InterimStatistics compute() {
+            if (toIndex - fromIndex <= chunkSize) {
+                InterimStatistics partial = new InterimStatistics();
+                scan(generation, firstBucket, lastBucket, expiredUpTo, fromIndex, toIndex, partial);
+                return partial;
+            }
+            int middle = (fromIndex + toIndex) >>> 1;
+            ScanTask left = new ScanTask(generation, firstBucket, lastBucket, expiredUpTo, fromIndex, middle, chunkSize);
+            left.fork();
+            InterimStatistics partial = new ScanTask(generation, firstBucket, lastBucket, expiredUpTo, middle, toIndex,
+                    chunkSize).compute();
+            // sum, count, min and max merge associatively, so the split points do not affect the result;
+            // the moments only up to floating-point rounding
+            partial.merge(0L, left.join());
+            return partial;
+        }
+    }
+
+    boolean hasEdges() {
+        return edges != null;
+    }
+
+    /**
+     * Number of slots whose occupancy bit is set.
+     */
+    int occupiedSlots() {
+        int occupied = 0;
+        for (int word = 0; word < occupancy.length; word++) {
+            occupied += Long.bitCount((long) COLUMN.getAcquire(occupancy, word));
+        }
+        return occupied;
+    }
+
+    int size() {
+        return buckets.length();
+    }
+
+    InterimStatistics get(int index) {
+        return buckets.get(index);
+    }
+
+    InterimStatistics bucketAt(long bucketStart) {
+        return buckets.get(indexOf(bucketStart));
+    }
+
+    private int indexOf(long bucketStart) {
+        return (int) ((bucketStart / resolutionInMillis) % buckets.length());
+    }
+}
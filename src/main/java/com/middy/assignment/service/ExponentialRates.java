@@ -0,0 +1,110 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.middy.assignment.model.OrderRates;
+import com.middy.assignment.model.Rates;
+
+/**
+ * One, five and fifteen minute exponentially weighted moving averages of the order rate and amount rate, computed
+ * like Unix load averages.
+ * <p>
+ * {@link #mark} only adds to striped adders. Every {@value #TICK_INTERVAL_MILLIS} ms of the caller's clock, the first
+ * thread to notice, on ingest or on read, advances the tick with a compare-and-set and folds the orders counted since
+ * into the averages: {@code rate += alpha * (instantRate - rate)} with {@code alpha = 1 - exp(-interval / window)}.
+ * Ticks missed while nothing happened are applied at once as a decay by {@code (1 - alpha)^missed}, so an idle period
+ * costs one step. The first tick sets every average to the instant rate instead of starting from zero.
+ * <p>
+ * Amounts are summed as doubles. Amounts beyond the double range are left out of the amount rate, and so is an interval
+ * whose amounts overflow it together, as a single infinite or NaN step would stay in the averages for good.
+ */
+class ExponentialRates {
+
+    static final long TICK_INTERVAL_MILLIS = 5_000L;
+    private static final double TICK_INTERVAL_SECONDS = TICK_INTERVAL_MILLIS / 1000.0;
+    private static final double[] ALPHAS = {alpha(1), alpha(5), alpha(15)};
+
+    private final LongAdder uncountedOrders = new LongAdder();
+    private final DoubleAdder uncountedAmount = new DoubleAdder();
+    private final AtomicLong lastTick;
+
+    // Replaced as a whole by the ticking thread; null until the first tick
+    private volatile Averages averages;
+
+    private record Averages(double[] orders, double[] amount) {
+    }
+
+    ExponentialRates(long startMillis) {
+        this.lastTick = new AtomicLong(startMillis);
+    }
+
+    private static double alpha(int windowMinutes) {
+        return 1 - Math.exp(-TICK_INTERVAL_SECONDS / (windowMinutes * 60.0));
+    }
+
+    /**
+     * Counts one accepted order of {@code amount} at {@code currentTimeMillis}.
+     */
+    void mark(BigDecimal amount, long currentTimeMillis) {
+        mark(amount, 1L, currentTimeMillis);
+    }
+
+    /**
+     * Counts an order standing for {@code weight} orders of {@code amount} each.
+     */
+    void mark(BigDecimal amount, long weight, long currentTimeMillis) {
+        // Tick first, so the order counts towards the interval it arrived in
+        tickIfNecessary(currentTimeMillis);
+        uncountedOrders.add(weight);
+        double weightedAmount = amount.doubleValue() * weight;
+        if (Double.isFinite(weightedAmount)) {
+            uncountedAmount.add(weightedAmount);
+        }
+    }
+
+    OrderRates getRates(long currentTimeMillis) {
+        tickIfNecessary(currentTimeMillis);
+        Averages current = averages;
+        if (current == null) {
+            return new OrderRates(new Rates(0, 0, 0), new Rates(0, 0, 0));
+        }
+        return new OrderRates(toRates(current.orders()), toRates(current.amount()));
+    }
+
+    private static Rates toRates(double[] rates) {
+        return new Rates(rates[0], rates[1], rates[2]);
+    }
+
+    private void tickIfNecessary(long currentTimeMillis) {
+        long last = lastTick.get();
+        long age = currentTimeMillis - last;
+        if (age >= TICK_INTERVAL_MILLIS && lastTick.compareAndSet(last, currentTimeMillis - age % TICK_INTERVAL_MILLIS)) {
+            tick(age / TICK_INTERVAL_MILLIS);
+        }
+    }
+
+    private void tick(long ticks) {
+        double orderRate = uncountedOrders.sumThenReset() / TICK_INTERVAL_SECONDS;
+        double amountRate = uncountedAmount.sumThenReset() / TICK_INTERVAL_SECONDS;
+        if (!Double.isFinite(amountRate)) {
+            amountRate = 0;
+        }
+        Averages previous = averages;
+        double[] orders = new double[ALPHAS.length];
+        double[] amount = new double[ALPHAS.length];
+        for (int i = 0; i < ALPHAS.length; i++) {
+            orders[i] = previous == null ? orderRate : previous.orders()[i] + ALPHAS[i] * (orderRate - previous.orders()[i]);
+            amount[i] = previous == null ? amountRate : previous.amount()[i] + ALPHAS[i] * (amountRate - previous.amount()[i]);
+            if (ticks > 1) {
+                // The remaining ticks saw no orders: each one only decays the average
+                double decay = Math.pow(1 - ALPHAS[i], ticks - 1);
+                orders[i] *= decay;
+                amount[i] *= decay;
+            }
+        }
+        averages = new Averages(orders, amount);
+    }
+}
@@ -0,0 +1,220 @@
+package com.middy.assignment.service;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.metrics.StatisticsMetrics.Outcome;
+
+/**
+ * Remembers the ids of orders inside the window so a producer retry is not counted twice.
+ * <p>
+ * Ids are partitioned by the second of the order timestamp into a circular buffer of {@code period / 1000 + 2}
+ * partitions, indexed like the buckets of {@link StatisticsModule}. A partition is tagged with its second; the first
+ * order of a newer second that maps to the slot replaces the whole partition, so an expired second is dropped in O(1)
+ * and memory is bounded by the order rate times the window. A retry carries the original timestamp, so it always lands
+ * in the partition of the original. Once that second has left the window the order is rejected as old anyway.
+ * <p>
+ * {@link Mode#EXACT} keeps a concurrent hash set per second. {@link Mode#BLOOM} keeps a fixed-size {@link BloomFilter}
+ * per second instead, trading a configured false-positive rate (a fresh order wrongly dropped as a retry) for memory that
+ * does not grow with the rate.
+ * <p>
+ * An id only stays remembered once its order has been recorded: {@link #firstSeen} is followed by {@link #recorded} or,
+ * if ingest failed, {@link #forget}, so the retry of a rejected order is counted. Exact sets claim the id in
+ * {@link #firstSeen}, so concurrent copies of one order are still counted once, and drop it again in {@link #forget}.
+ * Bloom filters cannot remove an id, so they only check it in {@link #firstSeen} and add it in {@link #recorded};
+ * copies racing through ingest at the same moment may then both be counted.
+ */
+@Slf4j
+@Component
+public class OrderDeduplicator {
+
+    private static final long PARTITION_MILLIS = 1000;
+
+    public enum Mode {
+        OFF, EXACT, BLOOM
+    }
+
+    private final Mode mode;
+    private final int expectedOrdersPerSecond;
+    private final double falsePositiveRate;
+    private final StatisticsMetrics metrics;
+    private final AtomicReferenceArray<Partition> partitions;
+
+    public OrderDeduplicator(Mode mode, int statisticsPeriodInMillis, int expectedOrdersPerSecond, double falsePositiveRate) {
+        this(mode, statisticsPeriodInMillis, expectedOrdersPerSecond, falsePositiveRate, StatisticsMetrics.disabled());
+    }
+
+    @Autowired
+    public OrderDeduplicator(@Value("${stats-dedup-mode:exact}") String mode,
+                             @Value("${stats-period-in-milliseconds}") int statisticsPeriodInMillis,
+                             @Value("${stats-dedup-expected-orders-per-second:10000}") int expectedOrdersPerSecond,
+                             @Value("${stats-dedup-false-positive-rate:0.001}") double falsePositiveRate,
+                             StatisticsMetrics metrics) {
+        this(Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)), statisticsPeriodInMillis, expectedOrdersPerSecond,
+                falsePositiveRate, metrics);
+    }
+
+    private OrderDeduplicator(Mode mode, int statisticsPeriodInMillis, int expectedOrdersPerSecond,
+                              double falsePositiveRate, StatisticsMetrics metrics) {
+        if (mode == Mode.BLOOM && (expectedOrdersPerSecond <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1)) {
+            throw new IllegalArgumentException("Bloom deduplication needs expected orders per second > 0 and 0 < false positive rate < 1");
+        }
+        this.mode = mode;
+        this.expectedOrdersPerSecond = expectedOrdersPerSecond;
+        this.falsePositiveRate = falsePositiveRate;
+        this.metrics = metrics;
+        this.partitions = new AtomicReferenceArray<>((int) (statisticsPeriodInMillis / PARTITION_MILLIS) + 2);
+        log.info("OrderDeduplicator initialized with mode {} and {} partitions", mode, partitions.length());
+    }
+
+    /**
+     * Returns {@code true} if {@code orderId} was not recorded before for the second of {@code timestamp}, i.e. the
+     * order should be counted. Orders without an id are always counted.
+     */
+    public boolean firstSeen(String orderId, long timestamp) {
+        if (orderId == null || mode == Mode.OFF) {
+            return true;
+        }
+        long second = Math.floorDiv(timestamp, PARTITION_MILLIS);
+        Partition partition = partitionOf(second);
+        if (partition.second > second) {
+            // The slot already moved on to a later second, so this order is older than the window
+            return true;
+        }
+        if (partition.claim(orderId)) {
+            return true;
+        }
+        metrics.ingested(Outcome.DUPLICATE);
+        return false;
+    }
+
+    /**
+     * Remembers {@code orderId} once its order, let through by {@link #firstSeen}, has been recorded.
+     */
+    public void recorded(String orderId, long timestamp) {
+        Partition partition = existingPartition(orderId, timestamp);
+        if (partition != null) {
+            partition.commit(orderId);
+        }
+    }
+
+    /**
+     * Forgets {@code orderId} after its order, let through by {@link #firstSeen}, failed to be recorded, so that
+     * a retry is counted.
+     */
+    public void forget(String orderId, long timestamp) {
+        Partition partition = existingPartition(orderId, timestamp);
+        if (partition != null) {
+            partition.abort(orderId);
+        }
+    }
+
+    private Partition partitionOf(long second) {
+        int slot = (int) Math.floorMod(second, (long) partitions.length());
+        Partition partition = partitions.get(slot);
+        while (partition == null || partition.second < second) {
+            Partition fresh = newPartition(second);
+            if (partitions.compareAndSet(slot, partition, fresh)) {
+                return fresh;
+            }
+            partition = partitions.get(slot);
+        }
+        return partition;
+    }
+
+    private Partition existingPartition(String orderId, long timestamp) {
+        if (orderId == null || mode == Mode.OFF) {
+            return null;
+        }
+        long second = Math.floorDiv(timestamp, PARTITION_MILLIS);
+        Partition partition = partitions.get((int) Math.floorMod(second, (long) partitions.length()));
+        return partition != null && partition.second == second ? partition : null;
+    }
+
+    /**
+     * Forgets every id, together with the orders removed by {@code DELETE /v1/orders}.
+     */
+    public void clear() {
+        for (int i = 0; i < partitions.length(); i++) {
+            partitions.set(i, null);
+        }
+    }
+
+    private Partition newPartition(long second) {
+        return mode == Mode.BLOOM
+                ? new BloomPartition(second, new BloomFilter(expectedOrdersPerSecond, falsePositiveRate))
+                : new ExactPartition(second);
+    }
+
+    private abstract static class Partition {
+        final long second;
+
+        Partition(long second) {
+            this.second = second;
+        }
+
+        /**
+         * Returns {@code true} if {@code orderId} is new to this second.
+         */
+        abstract boolean claim(String orderId);
+
+        abstract void commit(String orderId);
+
+        abstract void abort(String orderId);
+    }
+
+    private static final class ExactPartition extends Partition {
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        ExactPartition(long second) {
+            super(second);
+        }
+
+        @Override
+        boolean claim(String orderId) {
+            return ids.add(orderId);
+        }
+
+        @Override
+        void commit(String orderId) {
+            // Claimed already
+        }
+
+        @Override
+        void abort(String orderId) {
+            ids.remove(orderId);
+        }
+    }
+
+    private static final class BloomPartition extends Partition {
+        private final BloomFilter filter;
+
+        BloomPartition(long second, BloomFilter filter) {
+            super(second);
+            this.filter = filter;
+        }
+
+        @Override
+        boolean claim(String orderId) {
+            return !filter.mightContain(orderId);
+        }
+
+        @Override
+        void commit(String orderId) {
+            filter.put(orderId);
+        }
+
+        @Override
+        void abort(String orderId) {
+            // Never added
+        }
+    }
+}
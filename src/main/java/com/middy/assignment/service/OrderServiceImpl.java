@@ -10,18 +10,48 @@ import com.middy.assignment.model.Order;
 public class OrderServiceImpl implements OrderService {
 
     private final StatisticsModule statisticsModule;
+    private final OrderDeduplicator deduplicator;
+    private final AdmissionController admission;
 
-    public OrderServiceImpl(StatisticsModule statisticsModule) {
+    public OrderServiceImpl(StatisticsModule statisticsModule, OrderDeduplicator deduplicator,
+                            AdmissionController admission) {
         this.statisticsModule = statisticsModule;
+        this.deduplicator = deduplicator;
+        this.admission = admission;
     }
 
     @Override
     public void addOrder(Order order) {
-        statisticsModule.addOrder(order);
+        // A retry of an order already counted is acknowledged like the original but not added again
+        if (!deduplicator.firstSeen(order.getOrderId(), order.getTimestamp())) {
+            return;
+        }
+        try {
+            record(order);
+        } catch (RuntimeException e) {
+            // Not counted, so a retry must not be taken for a duplicate
+            deduplicator.forget(order.getOrderId(), order.getTimestamp());
+            throw e;
+        }
+        deduplicator.recorded(order.getOrderId(), order.getTimestamp());
+    }
+
+    private void record(Order order) {
+        // Under overload only a sample is recorded, each standing for 1/p orders; the rest are acknowledged unrecorded
+        long weight = admission.admit();
+        if (weight == 0) {
+            return;
+        }
+        try {
+            statisticsModule.addOrder(order, weight);
+        } finally {
+            admission.release();
+        }
     }
 
     @Override
     public void deleteAllOrders() {
+        deduplicator.clear();
         statisticsModule.deleteAllOrders();
     }
 }
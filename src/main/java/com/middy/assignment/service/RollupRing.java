@@ -0,0 +1,89 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.middy.assignment.model.InterimStatistics;
+import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsPoint;
+
+/**
+ * Fixed-size circular buffer of aggregated slots, each covering {@code slotMillis} of wall-clock time.
+ * <p>
+ * Works like the per-millisecond buffer of {@link StatisticsModule}: a slot is addressed by
+ * {@code (slotStart / slotMillis) % slots} and is recycled when data for a newer slot lands on it,
+ * so memory is bounded by {@code slots} regardless of traffic.
+ */
+class RollupRing {
+
+    private final long slotMillis;
+    private final int slots;
+    private final AtomicReferenceArray<InterimStatistics> rollups;
+
+    RollupRing(long slotMillis, int slots) {
+        this.slotMillis = slotMillis;
+        this.slots = slots;
+        this.rollups = new AtomicReferenceArray<>(slots);
+        for (int i = 0; i < slots; i++) {
+            rollups.set(i, new InterimStatistics());
+        }
+    }
+
+    long getSlotMillis() {
+        return slotMillis;
+    }
+
+    /**
+     * @return the oldest slot start still retained when the newest data is at {@code currentTimeMillis}
+     */
+    long getRetentionStart(long currentTimeMillis) {
+        return slotStart(currentTimeMillis) - (slots - 1) * slotMillis;
+    }
+
+    void record(InterimStatistics bucket) {
+        long slotStart = slotStart(bucket.getTimestamp());
+        rollups.get((int) ((slotStart / slotMillis) % slots)).merge(slotStart, bucket);
+    }
+
+    /**
+     * Aggregates the retained slots in {@code [from, to)} into points of {@code stepMillis} each.
+     * {@code from} is aligned down to a slot boundary and {@code stepMillis} must be a multiple of the slot size.
+     * Points holding orders recorded with a weight are flagged as estimated.
+     */
+    List<StatisticsPoint> query(long from, long to, long stepMillis) {
+        List<StatisticsPoint> points = new ArrayList<>();
+        for (long pointStart = slotStart(from); pointStart < to; pointStart += stepMillis) {
+            BigDecimal sum = BigDecimal.ZERO;
+            long count = 0;
+            BigDecimal min = BigDecimal.valueOf(Double.MAX_VALUE);
+            BigDecimal max = BigDecimal.valueOf(-Double.MAX_VALUE);
+            double mean = 0;
+            double m2 = 0;
+            boolean sampled = false;
+            long pointEnd = Math.min(pointStart + stepMillis, to);
+            for (long slotStart = pointStart; slotStart < pointEnd; slotStart += slotMillis) {
+                InterimStatistics rollup = rollups.get((int) ((slotStart / slotMillis) % slots));
+                synchronized (rollup) {
+                    if (rollup.getTimestamp() == slotStart && rollup.getCount() > 0) {
+                        sum = sum.add(rollup.getSum());
+                        m2 = InterimStatistics.mergeM2(count, mean, m2, rollup.getCount(), rollup.getMean(), rollup.getM2());
+                        mean = InterimStatistics.mergeMean(count, mean, rollup.getCount(), rollup.getMean());
+                        count += rollup.getCount();
+                        min = min.min(rollup.getMin());
+                        max = max.max(rollup.getMax());
+                        sampled |= rollup.isSampled();
+                    }
+                }
+            }
+            Statistics statistics = Statistics.of(sum, count, min, max, m2);
+            points.add(new StatisticsPoint(pointStart, sampled ? statistics.asEstimated() : statistics));
+        }
+        return points;
+    }
+
+    private long slotStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, slotMillis);
+    }
+}
@@ -0,0 +1,30 @@
+package com.middy.assignment.service;
+
+/**
+ * Portable {@link WindowMask} testing one slot at a time.
+ */
+final class ScalarWindowMask implements WindowMask {
+
+    @Override
+    public int select(long[] tags, long[] generations, int fromIndex, int toIndex,
+                      long generation, long firstBucket, long lastBucket, int[] selected) {
+        return select(tags, generations, fromIndex, toIndex, generation, firstBucket, lastBucket, selected, 0);
+    }
+
+    /**
+     * Appends the matching indexes to {@code selected} starting at {@code offset}.
+     *
+     * @return {@code offset} plus the number of indexes written
+     */
+    static int select(long[] tags, long[] generations, int fromIndex, int toIndex,
+                      long generation, long firstBucket, long lastBucket, int[] selected, int offset) {
+        int count = offset;
+        for (int i = fromIndex; i < toIndex; i++) {
+            long tag = tags[i];
+            if (generations[i] == generation && firstBucket <= tag && tag <= lastBucket) {
+                selected[count++] = i;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,85 @@
+package com.middy.assignment.service;
+
+import java.time.Clock;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.middy.assignment.model.InterimStatistics;
+import com.middy.assignment.model.StatisticsPoint;
+
+/**
+ * Long-horizon history built from the buckets that leave the {@link StatisticsModule} window.
+ * <p>
+ * Expired buckets are folded into two {@link RollupRing}s: one slot per minute and one slot per hour.
+ * Memory is fixed by {@code stats-history-minutes} and {@code stats-history-hours}; no individual orders are kept.
+ * Data still inside the live window is not part of the history until it expires.
+ * {@link StatisticsModule#deleteAllOrders()} keeps the history: orders deleted while inside the window are never
+ * archived, and points already archived are not removed.
+ */
+@Slf4j
+@Component
+public class StatisticsHistory {
+
+    static final long MINUTE_MILLIS = 60_000L;
+    static final long HOUR_MILLIS = 3_600_000L;
+
+    private final StatisticsModule statisticsModule;
+    private final Clock clock;
+    private final RollupRing minutes;
+    private final RollupRing hours;
+
+    public StatisticsHistory(StatisticsModule statisticsModule, Clock clock,
+                             @Value("${stats-history-minutes:1440}") int minuteSlots,
+                             @Value("${stats-history-hours:720}") int hourSlots) {
+        this.statisticsModule = statisticsModule;
+        this.clock = clock;
+        this.minutes = new RollupRing(MINUTE_MILLIS, minuteSlots);
+        this.hours = new RollupRing(HOUR_MILLIS, hourSlots);
+        statisticsModule.setExpiryListener(this::record);
+    }
+
+    /**
+     * Moves the buckets that left the window since the last tick into the rollups.
+     */
+    @Scheduled(fixedRateString = "${stats-history-flush-interval-in-milliseconds:1000}")
+    public void flushExpiredBuckets() {
+        statisticsModule.expireBuckets(clock.millis());
+    }
+
+    /**
+     * Returns points of {@code stepMillis} covering {@code [from, to)}.
+     * The per-minute rollup is used when it still retains {@code from} and the step is a whole number of minutes,
+     * otherwise the per-hour rollup is used. Ranges beyond the retention of the chosen rollup are clamped.
+     *
+     * @throws IllegalArgumentException if the range is empty or the step does not fit any rollup
+     */
+    public List<StatisticsPoint> getHistory(long from, long to, long stepMillis) {
+        if (from >= to || stepMillis <= 0) {
+            throw new IllegalArgumentException("History range must be non-empty with a positive step");
+        }
+        long now = clock.millis();
+        RollupRing ring;
+        if (stepMillis % MINUTE_MILLIS == 0 && from >= minutes.getRetentionStart(now)) {
+            ring = minutes;
+        } else if (stepMillis % HOUR_MILLIS == 0) {
+            ring = hours;
+        } else {
+            throw new IllegalArgumentException(String.format(
+                    "Step of %d ms must be a multiple of a minute within the last %d minutes or of an hour otherwise",
+                    stepMillis, (now - minutes.getRetentionStart(now)) / MINUTE_MILLIS));
+        }
+        long clampedFrom = Math.max(from, ring.getRetentionStart(now));
+        long clampedTo = Math.min(to, now + 1);
+        log.debug("Querying {} ms history from {} to {} with step {}", ring.getSlotMillis(), clampedFrom, clampedTo, stepMillis);
+        return ring.query(clampedFrom, clampedTo, stepMillis);
+    }
+
+    void record(InterimStatistics bucket) {
+        minutes.record(bucket);
+        hours.record(bucket);
+    }
+}
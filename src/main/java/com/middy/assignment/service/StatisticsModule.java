@@ -1,102 +1,651 @@
 package com.middy.assignment.service;
 
-import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
-import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import com.middy.assignment.exception.OrderValidationException;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.middy.assignment.jfr.StatisticsScanEvent;
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.metrics.StatisticsMetrics.Outcome;
 import com.middy.assignment.model.InterimStatistics;
 import com.middy.assignment.model.Order;
+import com.middy.assignment.model.OrderRates;
 import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsPoint;
+import com.middy.assignment.tracing.SpanAttributes;
 
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Circular buffer of {@link InterimStatistics} buckets covering the statistics window.
+ * <p>
+ * Each bucket aggregates {@code resolution} milliseconds and is tagged with its start time, so the buffer holds
+ * {@code period / resolution + 1} buckets. A bucket belongs to a window when its start does; with a resolution above
+ * one millisecond the oldest, partially expired bucket is therefore left out and the window is up to
+ * {@code resolution - 1} ms shorter. With exact boundaries enabled a second, per-millisecond buffer is kept and read
+ * only for the two partially covered edge buckets, which makes queries exact again at the cost of that memory.
+ * <p>
+ * Buckets also carry the generation they were written in. {@link #deleteAllOrders()} only increments the module's
+ * generation; buckets of an older generation are treated as empty and reset by their next write.
+ * <p>
+ * With {@code stats-shards} above one the buckets are split into independent {@link BucketStore}s. Each request
+ * thread always writes to the store chosen by its thread id, so concurrent orders for the same millisecond do not
+ * contend on one bucket, and queries merge all stores when they read.
+ * <p>
+ * Once the module holds at least {@code stats-parallel-scan-threshold} buckets across all stores, {@link #getStatistics}
+ * splits the scan into ranges of {@value #SCAN_CHUNK_SIZE} buckets and reduces them on a dedicated
+ * {@link ForkJoinPool}. Smaller windows are scanned sequentially on the calling thread.
+ * <p>
+ * Concurrent {@link #getStatistics} calls for the same generation, time and period share a single scan: the first
+ * caller computes, later arrivals wait for its result instead of scanning again.
+ * <p>
+ * {@link #getWindowVersion} changes whenever the content of the window may have changed: on every accepted order,
+ * on every delete and once a counted order has left the window. The latter is detected lazily by the version call,
+ * which tracks the earliest time an order in the window expires and only walks the occupied buckets once it passes.
+ * <p>
+ * Accepted orders also feed {@link ExponentialRates}, smoothed 1, 5 and 15 minute rates that need no scan.
+ */
 @Slf4j
 @Component
 public class StatisticsModule {
 
+    // Buckets per parallel scan task: large enough to amortize forking, small enough to stay in L2
+    static final int SCAN_CHUNK_SIZE = 8192;
+
     private final int statisticsPeriodInMillis;
 
-    private static final int STATS_SCALE = 2;
+    private final int resolutionInMillis;
 
     private final Clock clock;
 
-    private final AtomicReferenceArray<InterimStatistics> interimStatistics;
+    private final BucketStore[] stores;
+
+    private final StatisticsMetrics metrics;
+
+    private final Tracer tracer;
+
+    // Null unless the window is large enough for the parallel scan
+    private final ForkJoinPool scanPool;
+
+    // Receives every bucket exactly once when it leaves the window (see expireBuckets and InterimStatistics.add)
+    private volatile Consumer<InterimStatistics> expiryListener;
+
+    // Incremented by deleteAllOrders; only buckets of the current generation hold live orders
+    private final AtomicLong generation = new AtomicLong();
+
+    // Scans in progress, keyed by what determines their result
+    private final ConcurrentHashMap<QueryKey, CompletableFuture<Statistics>> inFlightQueries = new ConcurrentHashMap<>();
+
+    private record QueryKey(long generation, long currentTimeMillis, int periodInMillis) {
+    }
+
+    // Components of the window version: accepted orders, and expiries detected by getWindowVersion
+    private final LongAdder ordersAccepted = new LongAdder();
+    private final AtomicLong expiriesObserved = new AtomicLong();
+
+    // Earliest time an order counted in the window leaves it; Long.MAX_VALUE while no such order is known
+    private final AtomicLong nextExpiryMillis = new AtomicLong(Long.MAX_VALUE);
+
+    // Set while nextExpiryMillis is being recomputed, so readers wait for the result
+    private volatile boolean recomputingExpiry;
+
+    private final Object expiryLock = new Object();
+
+    // Decayed 1/5/15 minute order and amount rates, fed by addOrder
+    private final ExponentialRates rates;
+
+    // Timestamps of the orders recorded with a weight above 1 since the oldest of them still in the window
+    private final AtomicReference<SampledRange> sampled = new AtomicReference<>(new SampledRange(-1, 0, -1));
 
-    public StatisticsModule(Clock clock, @Value("${stats-period-in-milliseconds}") int statisticsPeriodInMillis) {
+    private record SampledRange(long generation, long first, long last) {
+    }
+
+    // Start of the newest bucket that has already been offered to the expiry listener
+    private final AtomicLong lastExpiredMillis = new AtomicLong(-1);
+
+    public StatisticsModule(Clock clock, int statisticsPeriodInMillis) {
+        this(clock, statisticsPeriodInMillis, 1, false, StatisticsMetrics.disabled());
+    }
+
+    public StatisticsModule(Clock clock, int statisticsPeriodInMillis, StatisticsMetrics metrics) {
+        this(clock, statisticsPeriodInMillis, 1, false, metrics);
+    }
+
+    public StatisticsModule(Clock clock, int statisticsPeriodInMillis, StatisticsMetrics metrics, Tracer tracer) {
+        this(clock, statisticsPeriodInMillis, 1, false, 1, 0, 0, metrics, tracer);
+    }
+
+    public StatisticsModule(Clock clock, int statisticsPeriodInMillis, int resolutionInMillis, boolean exactBoundaries,
+                            StatisticsMetrics metrics) {
+        this(clock, statisticsPeriodInMillis, resolutionInMillis, exactBoundaries, 1, metrics);
+    }
+
+    public StatisticsModule(Clock clock, int statisticsPeriodInMillis, int resolutionInMillis, boolean exactBoundaries,
+                            int shards, StatisticsMetrics metrics) {
+        this(clock, statisticsPeriodInMillis, resolutionInMillis, exactBoundaries, shards, 0, 0, metrics);
+    }
+
+    public StatisticsModule(Clock clock, int statisticsPeriodInMillis, int resolutionInMillis, boolean exactBoundaries,
+                            int shards, int parallelScanThreshold, int parallelism, StatisticsMetrics metrics) {
+        this(clock, statisticsPeriodInMillis, resolutionInMillis, exactBoundaries, shards, parallelScanThreshold,
+                parallelism, metrics, OpenTelemetry.noop().getTracer(SpanAttributes.INSTRUMENTATION_SCOPE));
+    }
+
+    /**
+     * @param shards                number of bucket stores, {@code 0} for one per available processor
+     * @param parallelScanThreshold number of buckets from which the scan runs in parallel, {@code 0} to never
+     * @param parallelism           threads of the scan pool, {@code 0} for one per available processor
+     * @param tracer                records the ingest and query spans, the no-op tracer unless tracing is enabled
+     */
+    @Autowired
+    public StatisticsModule(Clock clock, @Value("${stats-period-in-milliseconds}") int statisticsPeriodInMillis,
+                            @Value("${stats-bucket-resolution-in-milliseconds:1}") int resolutionInMillis,
+                            @Value("${stats-exact-boundaries:false}") boolean exactBoundaries,
+                            @Value("${stats-shards:1}") int shards,
+                            @Value("${stats-parallel-scan-threshold:250000}") int parallelScanThreshold,
+                            @Value("${stats-parallel-scan-parallelism:0}") int parallelism,
+                            StatisticsMetrics metrics, Tracer tracer) {
+        if (resolutionInMillis < 1 || statisticsPeriodInMillis % resolutionInMillis != 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Bucket resolution %d ms must be positive and divide the period of %d ms",
+                    resolutionInMillis, statisticsPeriodInMillis));
+        }
+        if (shards < 0) {
+            throw new IllegalArgumentException("Number of shards must not be negative: " + shards);
+        }
         this.clock = clock;
         this.statisticsPeriodInMillis = statisticsPeriodInMillis;
-        interimStatistics = new AtomicReferenceArray<>(statisticsPeriodInMillis + 1);
-        for (int i = 0; i < statisticsPeriodInMillis + 1; i++) {
-            interimStatistics.set(i, new InterimStatistics());
+        this.resolutionInMillis = resolutionInMillis;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.stores = new BucketStore[shards == 0 ? Runtime.getRuntime().availableProcessors() : shards];
+        for (int i = 0; i < stores.length; i++) {
+            stores[i] = new BucketStore(statisticsPeriodInMillis, resolutionInMillis, exactBoundaries);
+        }
+        long bucketCount = (long) stores.length * stores[0].size();
+        this.scanPool = parallelScanThreshold > 0 && bucketCount >= parallelScanThreshold
+                ? newScanPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors())
+                : null;
+        this.rates = new ExponentialRates(clock.millis());
+        metrics.registerOccupancy(this, StatisticsModule::getWindowOccupancy);
+        metrics.registerRates(this, module -> module.getRates(module.clock.millis()));
+        log.info("StatisticsModule initialized with {} x {} buckets of {} ms, exact boundaries: {}, parallel scan: {}, "
+                        + "window mask: {}", stores.length, stores[0].size(), resolutionInMillis, stores[0].hasEdges(),
+                scanPool != null, BucketStore.WINDOW_MASK.getClass().getSimpleName());
+    }
+
+    private static ForkJoinPool newScanPool(int parallelism) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("stats-scan-" + threadNumber.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scanPool != null) {
+            scanPool.shutdownNow();
         }
     }
 
+    public int getStatisticsPeriodInMillis() {
+        return statisticsPeriodInMillis;
+    }
+
+    /**
+     * Registers the consumer that receives the aggregates of each bucket once it falls out of the window.
+     * The consumer is invoked while the bucket's monitor is held and must not block.
+     */
+    public void setExpiryListener(Consumer<InterimStatistics> expiryListener) {
+        this.expiryListener = expiryListener;
+    }
+
     public void addOrder(Order newOrder) {
-        long now = clock.millis();
+        addOrder(newOrder, 1L);
+    }
 
-        if (newOrder.getTimestamp() <= (now - 60000)) {
-            throw new OrderValidationException.OldOrderException(now, newOrder.getTimestamp());
+    /**
+     * Adds an order that stands for {@code weight} orders, as when ingest keeps 1 in {@code weight} orders under
+     * overload. Count, sum and the rates grow by {@code weight}, so they remain unbiased estimates; statistics
+     * covering such an order are flagged as estimated until it leaves the window.
+     */
+    public void addOrder(Order newOrder, long weight) {
+        // Read before anything else: the order belongs to this generation even if a delete overtakes it
+        long orderGeneration = generation.get();
+        Span span = tracer.spanBuilder(SpanAttributes.ADD_ORDER).startSpan();
+        try {
+            long now = clock.millis();
+
+            if (newOrder.getTimestamp() <= (now - statisticsPeriodInMillis)) {
+                rejected(span, Outcome.OLD);
+                throw new OrderValidationException.OldOrderException(now, newOrder.getTimestamp());
+            }
+
+            if (newOrder.getTimestamp() > now) {
+                rejected(span, Outcome.FUTURE);
+                throw new OrderValidationException.FutureOrderException(now, newOrder.getTimestamp());
+            }
+
+            long bucketStart = alignDown(newOrder.getTimestamp());
+            BucketStore store = storeOfCurrentThread();
+            log.debug("Adding new order: {} to InterimStatistics@{}", newOrder, bucketStart);
+            boolean recycled = store.add(orderGeneration, bucketStart, newOrder, weight, expiryListener, metrics, span);
+            if (weight != 1) {
+                markSampled(orderGeneration, newOrder.getTimestamp(), now);
+            }
+            ordersAccepted.increment();
+            lowerNextExpiry((store.hasEdges() ? newOrder.getTimestamp() : bucketStart) + statisticsPeriodInMillis);
+
+            if (recycled) {
+                metrics.bucketRecycled();
+            }
+            rates.mark(newOrder.getAmount(), weight, now);
+            metrics.ingested(Outcome.ACCEPTED);
+            span.setAttribute(SpanAttributes.OUTCOME, Outcome.ACCEPTED.tag());
+            span.setAttribute(SpanAttributes.BUCKET_RECYCLED, recycled);
+        } finally {
+            span.end();
         }
+    }
+
+    private void rejected(Span span, Outcome outcome) {
+        metrics.ingested(outcome);
+        span.setAttribute(SpanAttributes.OUTCOME, outcome.tag());
+    }
 
-        if (newOrder.getTimestamp() > now) {
-            throw new OrderValidationException.FutureOrderException(now, newOrder.getTimestamp());
+    private void markSampled(long orderGeneration, long timestamp, long now) {
+        SampledRange current = sampled.get();
+        while (current.generation() <= orderGeneration
+                && (current.generation() != orderGeneration || timestamp < current.first() || timestamp > current.last())) {
+            // A range that has left the window is started afresh instead of stretched, so it never outlives its orders
+            SampledRange next = current.generation() != orderGeneration || current.last() <= now - statisticsPeriodInMillis
+                    ? new SampledRange(orderGeneration, timestamp, timestamp)
+                    : new SampledRange(orderGeneration, Math.min(current.first(), timestamp), Math.max(current.last(), timestamp));
+            if (sampled.compareAndSet(current, next)) {
+                return;
+            }
+            current = sampled.get();
         }
+    }
+
+    /**
+     * Flags {@code statistics} of orders with timestamps in {@code [from, to)} as estimated if any of them may have
+     * been recorded with a weight.
+     */
+    private Statistics flagSampled(Statistics statistics, long currentGeneration, long from, long to) {
+        SampledRange range = sampled.get();
+        return range.generation() == currentGeneration && range.first() < to && range.last() >= from
+                ? statistics.asEstimated() : statistics;
+    }
 
-        int index = (int) (newOrder.getTimestamp() % statisticsPeriodInMillis);
-        log.debug("Adding new order: {} to InterimStatistics@{} : {}", newOrder, index, interimStatistics.get(index));
-        interimStatistics.get(index).add(newOrder);
+    /**
+     * Returns the 1, 5 and 15 minute exponentially weighted order and amount rates as of {@code currentTimeMillis}.
+     * Unlike the window statistics they are unaffected by {@link #deleteAllOrders()}.
+     */
+    public OrderRates getRates(long currentTimeMillis) {
+        return rates.getRates(currentTimeMillis);
     }
 
+    /**
+     * Deletes all orders by moving to a new generation, without touching any bucket.
+     * <p>
+     * An order belongs to the generation current when {@link #addOrder} was entered. An order racing with the delete
+     * is therefore deleted with it if it entered before the increment, even if its write lands afterwards, and kept
+     * otherwise. Each query reads the generation once, so it never mixes orders from before and after a delete.
+     * Deleted orders are not archived, and history archived before the delete is kept.
+     */
     public void deleteAllOrders() {
-        for (int i = 0; i < statisticsPeriodInMillis + 1; i++) {
-            interimStatistics.get(i).reset(0L);
+        long deleted = generation.getAndIncrement();
+        log.debug("Deleted all orders of generation {}", deleted);
+    }
+
+    /**
+     * Returns a version of the window ending at {@code currentTimeMillis} that increases whenever an order is accepted,
+     * orders are deleted, or a counted order has left the window since the previous call. Equal versions for two
+     * times imply equal {@link #getStatistics} results for the module period, except that orders racing with the call
+     * may already be counted in the statistics but not in the version, which only causes a later version change.
+     */
+    public long getWindowVersion(long currentTimeMillis) {
+        // Read the expiry before the flag: seeing the MAX_VALUE placeholder implies seeing the flag set
+        if (currentTimeMillis >= nextExpiryMillis.get() || recomputingExpiry) {
+            observeExpiry(currentTimeMillis);
         }
+        return generation.get() + ordersAccepted.sum() + expiriesObserved.get();
+    }
+
+    private void observeExpiry(long currentTimeMillis) {
+        synchronized (expiryLock) {
+            if (currentTimeMillis < nextExpiryMillis.get()) {
+                return;
+            }
+            recomputingExpiry = true;
+            try {
+                expiriesObserved.incrementAndGet();
+                // Orders added from here on lower the placeholder themselves; earlier ones are found by the walk
+                nextExpiryMillis.set(Long.MAX_VALUE);
+                long currentGeneration = generation.get();
+                for (BucketStore store : stores) {
+                    lowerNextExpiry(store.nextExpiry(currentGeneration, currentTimeMillis - statisticsPeriodInMillis,
+                            statisticsPeriodInMillis));
+                }
+            } finally {
+                recomputingExpiry = false;
+            }
+        }
+    }
+
+    private void lowerNextExpiry(long expiry) {
+        long current = nextExpiryMillis.get();
+        while (expiry < current && !nextExpiryMillis.compareAndSet(current, expiry)) {
+            current = nextExpiryMillis.get();
+        }
+    }
+
+    /**
+     * Offers every bucket that left the window since the previous call to the expiry listener.
+     * Buckets recycled by {@link #addOrder} in the meantime have already been archived on overwrite,
+     * so each bucket reaches the listener exactly once.
+     *
+     * @param currentTimeMillis the current time; a bucket is expired once its last millisecond is
+     *                          {@code <= currentTimeMillis - period}
+     * @return the number of buckets archived by this call
+     */
+    public int expireBuckets(long currentTimeMillis) {
+        Consumer<InterimStatistics> listener = expiryListener;
+        long currentGeneration = generation.get();
+        long expiredUpTo = alignDown(currentTimeMillis - statisticsPeriodInMillis - resolutionInMillis + 1);
+        long previous = lastExpiredMillis.get();
+        if (listener == null || expiredUpTo <= previous || !lastExpiredMillis.compareAndSet(previous, expiredUpTo)) {
+            return 0;
+        }
+
+        int archived = 0;
+        for (BucketStore store : stores) {
+            if (previous < 0 || (expiredUpTo - previous) / resolutionInMillis >= store.size()) {
+                // Too far behind (first run or long pause): sweep every slot once instead of walking the gap
+                for (int i = 0; i < store.size(); i++) {
+                    InterimStatistics stat = store.get(i);
+                    long timestamp = stat.getTimestamp();
+                    if (timestamp != 0 && timestamp <= expiredUpTo && stat.archive(currentGeneration, timestamp, listener)) {
+                        archived++;
+                    }
+                }
+            } else {
+                for (long t = previous + resolutionInMillis; t <= expiredUpTo; t += resolutionInMillis) {
+                    if (store.bucketAt(t).archive(currentGeneration, t, listener)) {
+                        archived++;
+                    }
+                }
+            }
+        }
+        log.debug("Archived {} expired buckets up to {}", archived, expiredUpTo);
+        return archived;
     }
 
     public Statistics getStatistics(long currentTimeMillis, int periodInMillis) {
+        long currentGeneration = generation.get();
+        QueryKey key = new QueryKey(currentGeneration, currentTimeMillis, periodInMillis);
+        CompletableFuture<Statistics> query = new CompletableFuture<>();
+        CompletableFuture<Statistics> inFlight = inFlightQueries.putIfAbsent(key, query);
+        if (inFlight != null) {
+            metrics.queryCoalesced();
+            Span span = startQuerySpan(periodInMillis, true);
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            } finally {
+                span.end();
+            }
+        }
+
+        Span span = startQuerySpan(periodInMillis, false);
+        try {
+            Statistics statistics = computeStatistics(currentGeneration, currentTimeMillis, periodInMillis, span);
+            query.complete(statistics);
+            return statistics;
+        } catch (RuntimeException e) {
+            query.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightQueries.remove(key, query);
+            span.end();
+        }
+    }
+
+    private Span startQuerySpan(int periodInMillis, boolean coalesced) {
+        return tracer.spanBuilder(SpanAttributes.GET_STATISTICS)
+                .setAttribute(SpanAttributes.PERIOD_MILLIS, periodInMillis)
+                .setAttribute(SpanAttributes.COALESCED, coalesced)
+                .startSpan();
+    }
+
+    private Statistics computeStatistics(long currentGeneration, long currentTimeMillis, int periodInMillis, Span span) {
         long start = currentTimeMillis - periodInMillis;
 
         log.info("Calculating statistics from {}({}) to {}({})",
                 Instant.ofEpochMilli(start).toString(), start,
                 Instant.ofEpochMilli(currentTimeMillis).toString(), currentTimeMillis);
 
-        BigDecimal sum = BigDecimal.ZERO;
-        long count = 0;
-        BigDecimal currentMin = BigDecimal.valueOf(Double.MAX_VALUE);
-        BigDecimal currentMax = BigDecimal.ZERO;
-
-        for (int i = 0; i < statisticsPeriodInMillis + 1; i++) {
-            InterimStatistics stat = interimStatistics.get(i);
-            synchronized (stat) {
-                long timestamp = stat.getTimestamp();
-                if (start < timestamp && timestamp <= currentTimeMillis) {
-                    sum = sum.add(stat.getSum());
-                    count += stat.getCount();
-                    currentMin = stat.getMin().min(currentMin);
-                    currentMax = stat.getMax().max(currentMax);
+        StatisticsScanEvent event = new StatisticsScanEvent();
+        event.begin();
+        long scanStart = System.nanoTime();
+        boolean exact = stores[0].hasEdges();
+        // With exact boundaries only buckets lying entirely inside the window are scanned, the edges come from
+        // the per-millisecond buffer. Otherwise a bucket is included when its start lies inside the window.
+        long firstBucket = exact ? alignUp(start + 1) : start + 1;
+        long lastBucket = exact ? alignDown(currentTimeMillis + 1) - resolutionInMillis : currentTimeMillis;
+        // Buckets whose last millisecond left the module's window a full period ago; the scan drops their occupancy
+        // bits. Measured on the module clock, so a query for a later time never hides buckets from current ones, and
+        // a period late, so a concurrent query for a slightly earlier time still finds its oldest buckets.
+        long expiredUpTo = alignDown(Math.min(currentTimeMillis, clock.millis()) - 2L * statisticsPeriodInMillis
+                - resolutionInMillis + 1);
+
+        InterimStatistics aggregate = new InterimStatistics();
+        if (scanPool != null) {
+            List<ForkJoinTask<InterimStatistics>> scans = new ArrayList<>(stores.length);
+            for (BucketStore store : stores) {
+                scans.add(scanPool.submit(store.scanTask(currentGeneration, firstBucket, lastBucket, expiredUpTo, SCAN_CHUNK_SIZE)));
+            }
+            for (ForkJoinTask<InterimStatistics> scan : scans) {
+                aggregate.merge(0L, scan.join());
+            }
+        }
+        for (BucketStore store : stores) {
+            if (scanPool == null) {
+                store.scan(currentGeneration, firstBucket, lastBucket, expiredUpTo, aggregate);
+            }
+            if (exact) {
+                aggregateEdges(store, currentGeneration, start + 1, currentTimeMillis + 1, aggregate);
+            }
+        }
+
+        metrics.scanTimer().record(System.nanoTime() - scanStart, TimeUnit.NANOSECONDS);
+        event.end();
+        long bucketsScanned = (lastBucket < firstBucket ? 0 : (lastBucket - firstBucket) / resolutionInMillis + 1)
+                * stores.length;
+        if (span.isRecording()) {
+            span.setAttribute(SpanAttributes.BUCKETS_SCANNED, bucketsScanned);
+            span.setAttribute(SpanAttributes.PARALLEL, scanPool != null);
+            span.setAttribute(SpanAttributes.ORDERS_COUNTED, aggregate.getCount());
+        }
+        if (event.shouldCommit()) {
+            event.period = periodInMillis;
+            event.bucketsScanned = bucketsScanned;
+            for (BucketStore store : stores) {
+                event.populatedBuckets += store.occupiedSlots();
+            }
+            event.orders = aggregate.getCount();
+            event.parallel = scanPool != null;
+            event.commit();
+        }
+        // Without exact boundaries the bucket straddling the window start is not scanned, so counting begins at the
+        // first bucket starting inside the window
+        return flagSampled(Statistics.of(aggregate.getSum(), aggregate.getCount(), aggregate.getMin(), aggregate.getMax(),
+                aggregate.getM2()), currentGeneration, exact ? start + 1 : alignUp(start + 1), currentTimeMillis + 1);
+    }
+
+    /**
+     * Calculates statistics for orders with timestamp in {@code [from, to)} using the range index,
+     * reading {@code O(log period)} aggregates instead of scanning the window. Boundaries follow the same
+     * rules as {@link #getStatistics(long, int)}.
+     *
+     * @throws IllegalArgumentException if the range is empty or not inside the current window
+     */
+    public Statistics getRangeStatistics(long currentTimeMillis, long from, long to) {
+        if (from >= to || from <= currentTimeMillis - statisticsPeriodInMillis || to > currentTimeMillis + 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Range [%s, %s) is not within the last %d ms", Instant.ofEpochMilli(from), Instant.ofEpochMilli(to),
+                    statisticsPeriodInMillis));
+        }
+        log.debug("Calculating range statistics from {} to {}", from, to);
+
+        long currentGeneration = generation.get();
+        boolean exact = stores[0].hasEdges();
+        InterimStatistics aggregate = new InterimStatistics();
+        for (BucketStore store : stores) {
+            if (exact) {
+                store.aggregateBuckets(currentGeneration, alignUp(from), alignDown(to), aggregate);
+                aggregateEdges(store, currentGeneration, from, to, aggregate);
+            } else {
+                store.aggregateBuckets(currentGeneration, alignUp(from), alignUp(to), aggregate);
+            }
+        }
+        return flagSampled(Statistics.of(aggregate.getSum(), aggregate.getCount(), aggregate.getMin(), aggregate.getMax(),
+                aggregate.getM2()), currentGeneration, exact ? from : alignUp(from), exact ? to : alignUp(to));
+    }
+
+    /**
+     * Splits the window ending at {@code currentTimeMillis} into points of {@code stepMillis}, aligned to epoch time
+     * like the history, in one pass over the occupied buckets of each store. The window and the generation are those
+     * {@link #getStatistics(long, int)} would use for the module period, so the points add up to its result; the first
+     * and last point are partial unless the window happens to start at a step boundary.
+     *
+     * @throws IllegalArgumentException if the step is not a positive multiple of the bucket resolution within the period
+     */
+    public List<StatisticsPoint> getSeries(long currentTimeMillis, long stepMillis) {
+        if (stepMillis <= 0 || stepMillis % resolutionInMillis != 0 || stepMillis > statisticsPeriodInMillis) {
+            throw new IllegalArgumentException(String.format(
+                    "Step of %d ms must be a multiple of the %d ms resolution and at most the %d ms period",
+                    stepMillis, resolutionInMillis, statisticsPeriodInMillis));
+        }
+        long currentGeneration = generation.get();
+        long start = currentTimeMillis - statisticsPeriodInMillis;
+        long firstPoint = (start + 1) - Math.floorMod(start + 1, stepMillis);
+        long lastPoint = currentTimeMillis - Math.floorMod(currentTimeMillis, stepMillis);
+        InterimStatistics[] points = new InterimStatistics[(int) ((lastPoint - firstPoint) / stepMillis + 1)];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new InterimStatistics();
+        }
+
+        // Same bucket selection as computeStatistics; a step is a whole number of buckets, so no bucket straddles two
+        boolean exact = stores[0].hasEdges();
+        long firstBucket = exact ? alignUp(start + 1) : start + 1;
+        long lastBucket = exact ? alignDown(currentTimeMillis + 1) - resolutionInMillis : currentTimeMillis;
+        for (BucketStore store : stores) {
+            store.scanSeries(currentGeneration, firstBucket, lastBucket, firstPoint, stepMillis, points);
+            if (exact) {
+                if (firstBucket > lastBucket) {
+                    // The whole window lies within two partial buckets
+                    aggregateEdgesInto(store, currentGeneration, start + 1, currentTimeMillis + 1, firstPoint, stepMillis, points);
+                } else {
+                    aggregateEdgesInto(store, currentGeneration, start + 1, firstBucket, firstPoint, stepMillis, points);
+                    aggregateEdgesInto(store, currentGeneration, lastBucket + resolutionInMillis, currentTimeMillis + 1,
+                            firstPoint, stepMillis, points);
                 }
             }
         }
 
-        if (count == 0) {
-            currentMin = BigDecimal.ZERO.setScale(STATS_SCALE, java.math.RoundingMode.HALF_UP);
-            currentMax = BigDecimal.ZERO.setScale(STATS_SCALE, java.math.RoundingMode.HALF_UP);
-        } else {
-            currentMin = currentMin.setScale(STATS_SCALE, java.math.RoundingMode.HALF_UP);
-            currentMax = currentMax.setScale(STATS_SCALE, java.math.RoundingMode.HALF_UP);
+        List<StatisticsPoint> series = new ArrayList<>(points.length);
+        for (int i = 0; i < points.length; i++) {
+            InterimStatistics point = points[i];
+            long pointStart = firstPoint + i * stepMillis;
+            series.add(new StatisticsPoint(pointStart, flagSampled(Statistics.of(point.getSum(), point.getCount(),
+                    point.getMin(), point.getMax(), point.getM2()), currentGeneration, pointStart, pointStart + stepMillis)));
         }
+        return series;
+    }
 
-        sum = sum.setScale(STATS_SCALE, java.math.RoundingMode.HALF_UP);
-        BigDecimal avg;
-        if (count == 0) {
-            avg = BigDecimal.ZERO.setScale(STATS_SCALE, java.math.RoundingMode.HALF_UP);
+    /**
+     * Merges the per-millisecond buckets of {@code [from, to)} into their points, one bucket-sized piece at a time.
+     */
+    private void aggregateEdgesInto(BucketStore store, long generation, long from, long to, long firstPoint,
+                                    long stepMillis, InterimStatistics[] points) {
+        for (long pieceFrom = from; pieceFrom < to; pieceFrom = alignDown(pieceFrom) + resolutionInMillis) {
+            long pieceTo = Math.min(to, alignDown(pieceFrom) + resolutionInMillis);
+            store.aggregateMillis(generation, pieceFrom, pieceTo, points[(int) ((pieceFrom - firstPoint) / stepMillis)]);
+        }
+    }
+
+    /**
+     * Adds the per-millisecond buckets of {@code [from, to)} that are not covered by a whole bucket,
+     * i.e. {@code [from, alignUp(from))} and {@code [alignDown(to), to)}, or the whole range if it lies within one bucket.
+     */
+    private void aggregateEdges(BucketStore store, long generation, long from, long to, InterimStatistics target) {
+        long innerFrom = alignUp(from);
+        long innerTo = alignDown(to);
+        if (innerFrom >= innerTo) {
+            store.aggregateMillis(generation, from, to, target);
         } else {
-            avg = sum.divide(BigDecimal.valueOf(count), STATS_SCALE, java.math.RoundingMode.HALF_UP);
+            store.aggregateMillis(generation, from, innerFrom, target);
+            store.aggregateMillis(generation, innerTo, to, target);
         }
-        return new Statistics(sum, avg, currentMax, currentMin, count);
+    }
+
+    /**
+     * Fraction of buckets holding data for the current window. Reads bucket timestamps without taking
+     * their monitors, so the value is approximate under concurrent ingest.
+     */
+    double getWindowOccupancy() {
+        long currentGeneration = generation.get();
+        long now = clock.millis();
+        long start = now - statisticsPeriodInMillis;
+        int populated = 0;
+        for (int i = 0; i < stores[0].size(); i++) {
+            for (BucketStore store : stores) {
+                InterimStatistics stat = store.get(i);
+                if (stat.getGeneration() == currentGeneration && start < stat.getTimestamp() && stat.getTimestamp() <= now) {
+                    populated++;
+                    break;
+                }
+            }
+        }
+        return (double) populated / (statisticsPeriodInMillis / resolutionInMillis);
+    }
+
+    private BucketStore storeOfCurrentThread() {
+        return stores.length == 1 ? stores[0] : stores[(int) (Thread.currentThread().getId() % stores.length)];
+    }
+
+    private long alignDown(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, resolutionInMillis);
+    }
+
+    private long alignUp(long timestamp) {
+        return alignDown(timestamp + resolutionInMillis - 1);
     }
 }
@@ -0,0 +1,86 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.middy.assignment.model.InterimStatistics;
+
+/**
+ * Multi-level index over the buckets of {@link StatisticsModule} for arbitrary range queries.
+ * <p>
+ * Level {@code L} holds one aggregate per {@code resolution * RADIX^L} milliseconds, aligned to epoch time, in its own
+ * circular buffer. Each node is tagged with the start of the interval it covers, so a node left over from an earlier cycle
+ * is detected by its tag rather than by clearing it, exactly like the leaf buckets. Nodes also carry the generation of
+ * {@link StatisticsModule}, so a delete needs no clearing either. Level 0 is the leaf buffer itself.
+ * <p>
+ * A range {@code [from, to)} decomposes into at most {@code 2 * (RADIX - 1)} nodes per level, so a query reads
+ * {@code O(RADIX * log(period))} nodes instead of the whole window. Every order updates one node per upper level.
+ */
+class StatisticsRangeIndex {
+
+    static final int RADIX = 16;
+
+    private final AtomicReferenceArray<InterimStatistics> leaves;
+    private final int leafSlots;
+    // levels[0] is unused; levels[L] covers nodeMillis[L] = resolution * RADIX^L milliseconds per node
+    private final AtomicReferenceArray<InterimStatistics>[] levels;
+    private final long[] nodeMillis;
+
+    @SuppressWarnings("unchecked")
+    StatisticsRangeIndex(AtomicReferenceArray<InterimStatistics> leaves, int resolutionMillis, int periodInMillis) {
+        this.leaves = leaves;
+        this.leafSlots = leaves.length();
+        int levelCount = 1;
+        for (long size = (long) resolutionMillis * RADIX; size <= periodInMillis; size *= RADIX) {
+            levelCount++;
+        }
+        this.levels = new AtomicReferenceArray[levelCount];
+        this.nodeMillis = new long[levelCount];
+        nodeMillis[0] = resolutionMillis;
+        for (int level = 1; level < levelCount; level++) {
+            nodeMillis[level] = nodeMillis[level - 1] * RADIX;
+            // Enough nodes that no two intervals overlapping the window share a slot
+            int slots = (int) (periodInMillis / nodeMillis[level]) + 2;
+            levels[level] = new AtomicReferenceArray<>(slots);
+            for (int i = 0; i < slots; i++) {
+                levels[level].set(i, new InterimStatistics());
+            }
+        }
+    }
+
+    /**
+     * Records an order of {@code generation} standing for {@code weight} orders that has already been added to its leaf
+     * bucket.
+     */
+    void add(long generation, long timestamp, BigDecimal amount, long weight) {
+        for (int level = 1; level < levels.length; level++) {
+            long nodeNumber = timestamp / nodeMillis[level];
+            levels[level].get((int) (nodeNumber % levels[level].length()))
+                    .accumulate(generation, nodeNumber * nodeMillis[level], amount, weight);
+        }
+    }
+
+    /**
+     * Aggregates every order of {@code generation} with timestamp in {@code [from, to)} into {@code target}.
+     * The caller guarantees the range lies within the window, i.e. no older than one period,
+     * and that both bounds are multiples of the leaf resolution.
+     */
+    void aggregate(long generation, long from, long to, InterimStatistics target) {
+        long t = from;
+        while (t < to) {
+            int level = levels.length - 1;
+            while (level > 0 && (t % nodeMillis[level] != 0 || t + nodeMillis[level] > to)) {
+                level--;
+            }
+            InterimStatistics node = level == 0
+                    ? leaves.get((int) ((t / nodeMillis[0]) % leafSlots))
+                    : levels[level].get((int) ((t / nodeMillis[level]) % levels[level].length()));
+            synchronized (node) {
+                if (node.getGeneration() == generation && node.getTimestamp() == t && node.getCount() > 0) {
+                    target.merge(0L, node);
+                }
+            }
+            t += nodeMillis[level];
+        }
+    }
+}
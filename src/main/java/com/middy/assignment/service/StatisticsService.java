@@ -1,7 +1,52 @@
 package com.middy.assignment.service;
 
+import java.util.List;
+
+import com.middy.assignment.model.OrderRates;
 import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsPoint;
+import com.middy.assignment.model.StatisticsSnapshot;
 
 public interface StatisticsService {
     Statistics getStatistics(long currentTimeMillis, int periodInMillis);
+
+    /**
+     * Returns a version of the window ending at {@code currentTimeMillis} that changes whenever its statistics may
+     * have changed.
+     */
+    long getWindowVersion(long currentTimeMillis);
+
+    /**
+     * Returns the statistics of the window ending at {@code currentTimeMillis} with their version and JSON encoding.
+     * While the window version is unchanged the previous snapshot is returned without computing anything.
+     */
+    StatisticsSnapshot getStatisticsSnapshot(long currentTimeMillis, int periodInMillis);
+
+    /**
+     * Returns the statistics for orders with timestamp in {@code [from, to)}, which must lie within the window
+     * ending at {@code currentTimeMillis}.
+     *
+     * @throws IllegalArgumentException if the range is empty or outside the window
+     */
+    Statistics getRangeStatistics(long currentTimeMillis, long from, long to);
+
+    /**
+     * Returns the archived statistics for {@code [from, to)} aggregated into points of {@code stepMillis}.
+     *
+     * @throws IllegalArgumentException if the range or step cannot be served
+     */
+    List<StatisticsPoint> getHistory(long from, long to, long stepMillis);
+
+    /**
+     * Returns the window ending at {@code currentTimeMillis} split into points of {@code stepMillis}. While the window
+     * version and the points covered are unchanged, the previous series for the same step is returned.
+     *
+     * @throws IllegalArgumentException if the step does not fit the window
+     */
+    List<StatisticsPoint> getSeries(long currentTimeMillis, long stepMillis);
+
+    /**
+     * Returns the exponentially weighted 1, 5 and 15 minute rates of accepted orders and their amounts.
+     */
+    OrderRates getRates(long currentTimeMillis);
 }
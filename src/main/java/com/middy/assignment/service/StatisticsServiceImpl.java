@@ -1,22 +1,110 @@
 package com.middy.assignment.service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import com.middy.assignment.dto.StatisticsDto;
+import com.middy.assignment.model.OrderRates;
 import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsPoint;
+import com.middy.assignment.model.StatisticsSnapshot;
 
 @Slf4j
 @Service
 public class StatisticsServiceImpl implements StatisticsService {
 
     private final StatisticsModule statisticsModule;
+    private final StatisticsHistory statisticsHistory;
+    // The application's mapper, so cached bodies follow spring.jackson.* like any other response
+    private final ObjectMapper objectMapper;
+
+    // Most recent window snapshot; reused until the window version or the requested period changes
+    private volatile CachedSnapshot latestSnapshot;
+
+    private record CachedSnapshot(int periodInMillis, StatisticsSnapshot snapshot) {
+    }
+
+    // Most recent series per step, for a few steps only since the step comes from the request
+    private static final int MAX_CACHED_SERIES = 8;
+    private final Map<Long, CachedSeries> latestSeries = new ConcurrentHashMap<>();
+
+    private record CachedSeries(long version, long firstPoint, long lastPoint, List<StatisticsPoint> points) {
+    }
 
-    public StatisticsServiceImpl(StatisticsModule statisticsModule) {
+    public StatisticsServiceImpl(StatisticsModule statisticsModule, StatisticsHistory statisticsHistory,
+                                 ObjectMapper objectMapper) {
         this.statisticsModule = statisticsModule;
+        this.statisticsHistory = statisticsHistory;
+        this.objectMapper = objectMapper;
     }
 
     @Override
     public Statistics getStatistics(long currentTimeMillis, int periodInMillis) {
         return statisticsModule.getStatistics(currentTimeMillis, periodInMillis);
     }
+
+    @Override
+    public long getWindowVersion(long currentTimeMillis) {
+        return statisticsModule.getWindowVersion(currentTimeMillis);
+    }
+
+    @Override
+    public StatisticsSnapshot getStatisticsSnapshot(long currentTimeMillis, int periodInMillis) {
+        // Read the version before computing: a change racing the scan is then picked up by the next call
+        long version = statisticsModule.getWindowVersion(currentTimeMillis);
+        CachedSnapshot cached = latestSnapshot;
+        if (cached != null && cached.periodInMillis() == periodInMillis && cached.snapshot().getVersion() == version) {
+            return cached.snapshot();
+        }
+        Statistics statistics = statisticsModule.getStatistics(currentTimeMillis, periodInMillis);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(new StatisticsDto(statistics));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode statistics " + statistics, e);
+        }
+        StatisticsSnapshot snapshot = new StatisticsSnapshot(version, statistics, json);
+        latestSnapshot = new CachedSnapshot(periodInMillis, snapshot);
+        return snapshot;
+    }
+
+    @Override
+    public Statistics getRangeStatistics(long currentTimeMillis, long from, long to) {
+        return statisticsModule.getRangeStatistics(currentTimeMillis, from, to);
+    }
+
+    @Override
+    public List<StatisticsPoint> getHistory(long from, long to, long stepMillis) {
+        return statisticsHistory.getHistory(from, to, stepMillis);
+    }
+
+    @Override
+    public List<StatisticsPoint> getSeries(long currentTimeMillis, long stepMillis) {
+        long version = statisticsModule.getWindowVersion(currentTimeMillis);
+        // The oldest and newest point determine which points the series covers
+        long windowStart = currentTimeMillis - statisticsModule.getStatisticsPeriodInMillis() + 1;
+        long firstPoint = windowStart - Math.floorMod(windowStart, stepMillis);
+        long lastPoint = currentTimeMillis - Math.floorMod(currentTimeMillis, stepMillis);
+        CachedSeries cached = latestSeries.get(stepMillis);
+        if (cached != null && cached.version() == version && cached.firstPoint() == firstPoint
+                && cached.lastPoint() == lastPoint) {
+            return cached.points();
+        }
+        List<StatisticsPoint> points = statisticsModule.getSeries(currentTimeMillis, stepMillis);
+        if (latestSeries.size() < MAX_CACHED_SERIES || latestSeries.containsKey(stepMillis)) {
+            latestSeries.put(stepMillis, new CachedSeries(version, firstPoint, lastPoint, points));
+        }
+        return points;
+    }
+
+    @Override
+    public OrderRates getRates(long currentTimeMillis) {
+        return statisticsModule.getRates(currentTimeMillis);
+    }
 }
@@ -0,0 +1,90 @@
+package com.middy.assignment.service;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.middy.assignment.model.StatisticsSnapshot;
+
+/**
+ * Parks long-poll requests for the statistics until the window version differs from the one the client holds, or
+ * their wait runs out.
+ * <p>
+ * A single scheduled tick reads the version once for all parked requests and computes the statistics at most once
+ * for those it releases, so waiting adds nothing to the ingest path. A request is released up to
+ * {@code stats-long-poll-interval-in-milliseconds} after the change.
+ */
+@Slf4j
+@Component
+public class StatisticsVersionWatcher {
+
+    private final StatisticsService statisticsService;
+    private final Clock clock;
+    private final int statisticsPeriodInMillis;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private record Waiter(long knownVersion, long deadlineMillis, CompletableFuture<Optional<StatisticsSnapshot>> change) {
+    }
+
+    public StatisticsVersionWatcher(StatisticsService statisticsService, Clock clock,
+                                    @Value("${stats-period-in-milliseconds}") int statisticsPeriodInMillis) {
+        this.statisticsService = statisticsService;
+        this.clock = clock;
+        this.statisticsPeriodInMillis = statisticsPeriodInMillis;
+    }
+
+    /**
+     * Waits up to {@code timeoutMillis} for the window version to differ from {@code knownVersion}.
+     * Cancelling the returned future withdraws the request.
+     *
+     * @return a future completed with the new snapshot, or with an empty optional once the wait runs out
+     */
+    public CompletableFuture<Optional<StatisticsSnapshot>> awaitChange(long knownVersion, long timeoutMillis) {
+        CompletableFuture<Optional<StatisticsSnapshot>> change = new CompletableFuture<>();
+        waiters.add(new Waiter(knownVersion, clock.millis() + timeoutMillis, change));
+        return change;
+    }
+
+    @Scheduled(fixedDelayString = "${stats-long-poll-interval-in-milliseconds:5}")
+    public void releaseWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        long now = clock.millis();
+        long version = statisticsService.getWindowVersion(now);
+        StatisticsSnapshot snapshot = null;
+        RuntimeException failure = null;
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (waiter.change().isDone()) {
+                it.remove();
+            } else if (waiter.knownVersion() != version) {
+                if (snapshot == null && failure == null) {
+                    try {
+                        snapshot = statisticsService.getStatisticsSnapshot(now, statisticsPeriodInMillis);
+                    } catch (RuntimeException e) {
+                        log.error("Error computing statistics for long-poll requests", e);
+                        failure = e;
+                    }
+                }
+                if (failure != null) {
+                    waiter.change().completeExceptionally(failure);
+                } else {
+                    waiter.change().complete(Optional.of(snapshot));
+                }
+                it.remove();
+            } else if (now >= waiter.deadlineMillis()) {
+                waiter.change().complete(Optional.empty());
+                it.remove();
+            }
+        }
+    }
+}
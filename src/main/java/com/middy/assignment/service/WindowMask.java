@@ -0,0 +1,34 @@
+package com.middy.assignment.service;
+
+/**
+ * Kernel selecting the slots of a {@link BucketStore} that belong to a window, working on the store's primitive
+ * tag and generation columns so that slots outside the window are skipped without taking their monitors.
+ * <p>
+ * {@link #create()} picks the Vector API implementation when it was built with the {@code vector} Maven profile and
+ * the JVM was started with {@code --add-modules jdk.incubator.vector}, and the scalar one otherwise.
+ */
+interface WindowMask {
+
+    /**
+     * Writes the index of every slot in {@code [fromIndex, toIndex)} with generation {@code generation} and tag in
+     * {@code [firstBucket, lastBucket]} to {@code selected}, in ascending order.
+     *
+     * @param selected receives the indexes, must hold at least {@code toIndex - fromIndex} elements
+     * @return the number of indexes written
+     */
+    int select(long[] tags, long[] generations, int fromIndex, int toIndex,
+               long generation, long firstBucket, long lastBucket, int[] selected);
+
+    String VECTOR_WINDOW_MASK = "com.middy.assignment.service.VectorWindowMask";
+
+    static WindowMask create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (WindowMask) Class.forName(VECTOR_WINDOW_MASK).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not built with the vector profile, or unusable on this platform; fall through to the scalar kernel
+            }
+        }
+        return new ScalarWindowMask();
+    }
+}
@@ -0,0 +1,29 @@
+package com.middy.assignment.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+
+/**
+ * Names of the spans and span attributes recorded along the ingest and query path.
+ */
+public final class SpanAttributes {
+
+    public static final String INSTRUMENTATION_SCOPE = "com.middy.assignment";
+
+    public static final String VALIDATE_ORDER = "order.validate";
+    public static final String ADD_ORDER = "statistics.addOrder";
+    public static final String GET_STATISTICS = "statistics.getStatistics";
+
+    /** {@code accepted}, {@code invalid}, {@code future} or {@code old}, as in {@code statistics.orders.ingested} */
+    public static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+    public static final AttributeKey<Long> BUCKET_INDEX = AttributeKey.longKey("bucket.index");
+    public static final AttributeKey<Boolean> BUCKET_RECYCLED = AttributeKey.booleanKey("bucket.recycled");
+    public static final AttributeKey<Long> LOCK_WAIT_NANOS = AttributeKey.longKey("bucket.lock.wait.nanos");
+    public static final AttributeKey<Long> PERIOD_MILLIS = AttributeKey.longKey("period.millis");
+    public static final AttributeKey<Boolean> COALESCED = AttributeKey.booleanKey("query.coalesced");
+    public static final AttributeKey<Boolean> PARALLEL = AttributeKey.booleanKey("scan.parallel");
+    public static final AttributeKey<Long> BUCKETS_SCANNED = AttributeKey.longKey("scan.buckets");
+    public static final AttributeKey<Long> ORDERS_COUNTED = AttributeKey.longKey("scan.orders");
+
+    private SpanAttributes() {
+    }
+}
@@ -0,0 +1,68 @@
+package com.middy.assignment.tracing;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+/**
+ * Decides which ended spans reach the exporter, now that their duration is known.
+ * <p>
+ * Every span at least {@code latencyThresholdNanos} long is kept, so slow outliers are never lost. Of the others,
+ * a {@code ratio} share is kept by trace id, the same way {@code TraceIdRatioBased} samples, so a trace is either kept
+ * whole or only through its slow spans. The SDK sampler must record every span for this to see them.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private final SpanProcessor delegate;
+    private final long traceIdUpperBound;
+    private final long latencyThresholdNanos;
+
+    public TailSamplingSpanProcessor(SpanProcessor delegate, double ratio, long latencyThresholdNanos) {
+        if (ratio < 0.0 || ratio > 1.0) {
+            throw new IllegalArgumentException("ratio must be in [0, 1]: " + ratio);
+        }
+        this.delegate = delegate;
+        this.traceIdUpperBound = ratio == 1.0 ? Long.MAX_VALUE : (long) (ratio * Long.MAX_VALUE);
+        this.latencyThresholdNanos = latencyThresholdNanos;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        delegate.onStart(parentContext, span);
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return delegate.isStartRequired();
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (span.getLatencyNanos() >= latencyThresholdNanos || keepsTrace(span.getSpanContext().getTraceId())) {
+            delegate.onEnd(span);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    private boolean keepsTrace(String traceId) {
+        // The low 64 bits of a trace id are random
+        long random = Long.parseUnsignedLong(traceId.substring(16), 16);
+        return traceIdUpperBound == Long.MAX_VALUE || Math.abs(random) < traceIdUpperBound;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+}
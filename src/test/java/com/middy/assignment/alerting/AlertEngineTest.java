@@ -0,0 +1,108 @@
+package com.middy.assignment.alerting;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.StatisticsModule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class AlertEngineTest {
+
+    private static final int STATS_PERIOD = 60000;
+    // 2023-10-05T10:30:00Z
+    private static final long START = 1696501800000L;
+
+    private final AtomicLong now = new AtomicLong(START);
+    private final List<Alert> published = new ArrayList<>();
+    private Clock clock;
+    private StatisticsModule module;
+
+    @BeforeEach
+    void setUp() {
+        clock = Mockito.mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        module = new StatisticsModule(clock, STATS_PERIOD);
+    }
+
+    private AlertEngine engine(String rules) {
+        return new AlertEngine(module, clock, List.of(published::add), STATS_PERIOD, rules);
+    }
+
+    private void addOrderNow(String amount) {
+        module.addOrder(new Order(new BigDecimal(amount), now.get()));
+    }
+
+    @Test
+    @DisplayName("Should fire once when a rule starts breaching and resolve once when it stops")
+    void shouldFireAndResolveOnce() {
+        AlertEngine engine = engine("count(10s) < 2");
+        addOrderNow("10.00");
+
+        engine.evaluate();
+        engine.evaluate();
+        assertEquals(1, published.size());
+        assertEquals(Alert.State.FIRING, published.get(0).state());
+        assertEquals(1.0, published.get(0).value());
+        assertEquals(1, engine.getFiringAlerts().size());
+
+        addOrderNow("20.00");
+        engine.evaluate();
+
+        assertEquals(2, published.size());
+        assertEquals(Alert.State.RESOLVED, published.get(1).state());
+        assertTrue(engine.getFiringAlerts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should detect a short-window average spike against the baseline")
+    void shouldDetectSpikeAgainstBaseline() {
+        AlertEngine engine = engine("avg(2s) > 3 sigma(60s); count(10s) > 1000");
+        for (int i = 0; i < 50; i++) {
+            now.set(START + i * 1_000L);
+            addOrderNow(i % 2 == 0 ? "90.00" : "110.00");
+        }
+        engine.evaluate();
+        assertTrue(published.isEmpty());
+
+        now.set(START + 55_000);
+        for (int i = 0; i < 5; i++) {
+            addOrderNow("1000.00");
+        }
+        engine.evaluate();
+
+        assertEquals(1, published.size());
+        assertEquals("avg(2s) > 3 sigma(60s)", published.get(0).rule());
+        assertEquals(1000.0, published.get(0).value());
+    }
+
+    @Test
+    @DisplayName("Should keep publishing to the other sinks when one fails")
+    void shouldIsolateFailingSinks() {
+        AlertEngine engine = new AlertEngine(module, clock, List.of(alert -> {
+            throw new IllegalStateException("down");
+        }, published::add), STATS_PERIOD, "count(10s) < 1");
+
+        engine.evaluate();
+
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    @DisplayName("Should reject windows longer than the statistics period")
+    void shouldRejectWindowsBeyondPeriod() {
+        assertThrows(IllegalArgumentException.class, () -> engine("avg(10s) > 3 sigma(120s)"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.middy.assignment.alerting;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.middy.assignment.model.Statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertRuleTest {
+
+    private static Statistics statistics(long count, String avg, String stddev) {
+        BigDecimal value = new BigDecimal(avg);
+        return new Statistics(value.multiply(BigDecimal.valueOf(count)), value, value, value, count,
+                new BigDecimal(stddev).pow(2), new BigDecimal(stddev));
+    }
+
+    @Test
+    @DisplayName("Should parse absolute and sigma limits")
+    void shouldParseRules() {
+        AlertRule count = AlertRule.parse(" count(10s) < 5 ");
+        assertEquals(AlertRule.Metric.COUNT, count.metric());
+        assertEquals(10_000, count.windowMillis());
+        assertFalse(count.above());
+        assertEquals(5.0, count.threshold());
+        assertEquals("count(10s) < 5", count.expression());
+
+        AlertRule avg = AlertRule.parse("avg(10s) > 3 sigma(60s)");
+        assertTrue(avg.above());
+        assertEquals(3.0, avg.sigmas());
+        assertEquals(60_000, avg.baselineMillis());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed rules")
+    void shouldRejectMalformedRules() {
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("avg(10s) >= 5"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("median(10s) > 5"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("count(10s) > 3 sigma(60s)"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("avg(ten) > 5"));
+    }
+
+    @Test
+    @DisplayName("Should compare against the baseline mean plus k standard deviations")
+    void shouldEvaluateSigmaLimit() {
+        AlertRule rule = AlertRule.parse("avg(10s) > 3 sigma(60s)");
+
+        AlertRule.Evaluation spike = rule.evaluate(window -> window == 10_000
+                ? statistics(4, "170.00", "1.00") : statistics(60, "100.00", "20.00"));
+        AlertRule.Evaluation normal = rule.evaluate(window -> window == 10_000
+                ? statistics(4, "150.00", "1.00") : statistics(60, "100.00", "20.00"));
+
+        assertEquals(160.0, spike.limit());
+        assertTrue(spike.breached());
+        assertFalse(normal.breached());
+    }
+
+    @Test
+    @DisplayName("Should not judge a window without orders except by count and sum")
+    void shouldSkipEmptyWindows() {
+        Statistics empty = statistics(0, "0.00", "0.00");
+
+        assertNull(AlertRule.parse("avg(10s) > 5").evaluate(window -> empty));
+        assertNull(AlertRule.parse("max(10s) > 1 sigma(60s)").evaluate(window -> window == 10_000
+                ? statistics(1, "10.00", "0.00") : statistics(1, "10.00", "0.00")));
+        assertTrue(AlertRule.parse("count(10s) < 5").evaluate(window -> empty).breached());
+    }
+
+    @Test
+    @DisplayName("Should not judge by a standard deviation that could not be computed")
+    void shouldSkipUnavailableStddev() {
+        BigDecimal huge = new BigDecimal("1e400");
+        Statistics overflowed = new Statistics(huge, huge, huge, huge, 2L, null, null);
+
+        assertNull(AlertRule.parse("stddev(10s) > 5").evaluate(window -> overflowed));
+        assertNull(AlertRule.parse("avg(10s) > 3 sigma(60s)").evaluate(window -> window == 10_000
+                ? statistics(4, "170.00", "1.00") : overflowed));
+        assertTrue(AlertRule.parse("count(10s) > 1").evaluate(window -> overflowed).breached());
+    }
+}
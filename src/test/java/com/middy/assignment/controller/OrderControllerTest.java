@@ -1,6 +1,12 @@
 package com.middy.assignment.controller;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.Clock;
+import java.time.Instant;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,9 +18,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.middy.assignment.dto.CompactMediaTypes;
+import com.middy.assignment.dto.CompactOrderDto;
+import com.middy.assignment.dto.ScaledDecimal;
 import com.middy.assignment.dto.transformers.OrderTransformer;
 import com.middy.assignment.service.OrderService;
 
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -103,6 +113,68 @@ class OrderControllerTest {
                 .andExpect(content().string(""));
     }
 
+    @Test
+    void addOrder_withOrderId_passesIdToService() throws Exception {
+        String body = "{\"amount\":\"100.00\",\"timestamp\":\"" + Instant.now() + "\",\"orderId\":\"retry-1\"}";
+        mockMvc.perform(post("/v1/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        verify(mockOrderService).addOrder(argThat(added -> "retry-1".equals(added.getOrderId())));
+    }
+
+    @Test
+    void addOrder_cbor_returns201() throws Exception {
+        CompactOrderDto order = new CompactOrderDto(new ScaledDecimal(new BigDecimal("100.50")), Instant.now().toString());
+        mockMvc.perform(post("/v1/orders")
+                        .contentType(CompactMediaTypes.CBOR_VALUE)
+                        .content(new CBORMapper().writeValueAsBytes(order)))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(""));
+
+        verify(mockOrderService).addOrder(argThat(added -> added.getAmount().equals(new BigDecimal("100.50"))));
+    }
+
+    @Test
+    void addOrder_smileBigInteger_returns201() throws Exception {
+        CompactOrderDto order = new CompactOrderDto(new ScaledDecimal(BigInteger.TEN.pow(30), 0), Instant.now().toString());
+        mockMvc.perform(post("/v1/orders")
+                        .contentType(CompactMediaTypes.SMILE_VALUE)
+                        .content(new SmileMapper().writeValueAsBytes(order)))
+                .andExpect(status().isCreated());
+
+        verify(mockOrderService).addOrder(argThat(added -> added.getAmount().equals(new BigDecimal(BigInteger.TEN.pow(30)))));
+    }
+
+    @Test
+    void addOrder_cborMissingScale_returns400() throws Exception {
+        CompactOrderDto order = new CompactOrderDto(new ScaledDecimal(10L, null), Instant.now().toString());
+        mockMvc.perform(post("/v1/orders")
+                        .contentType(CompactMediaTypes.CBOR_VALUE)
+                        .content(new CBORMapper().writeValueAsBytes(order)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addOrder_cborFractionalUnscaled_returns400() throws Exception {
+        CompactOrderDto order = new CompactOrderDto(new ScaledDecimal(1.5, 2), Instant.now().toString());
+        mockMvc.perform(post("/v1/orders")
+                        .contentType(CompactMediaTypes.CBOR_VALUE)
+                        .content(new CBORMapper().writeValueAsBytes(order)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addOrder_cborOldOrder_returns204() throws Exception {
+        String old = Instant.ofEpochMilli(System.currentTimeMillis() - 61000).toString();
+        CompactOrderDto order = new CompactOrderDto(new ScaledDecimal(new BigDecimal("1.00")), old);
+        mockMvc.perform(post("/v1/orders")
+                        .contentType(CompactMediaTypes.CBOR_VALUE)
+                        .content(new CBORMapper().writeValueAsBytes(order)))
+                .andExpect(status().isNoContent());
+    }
+
     @Test
     void deleteAllOrders_success_returns204() throws Exception {
         mockMvc.perform(delete("/v1/orders"))
@@ -0,0 +1,134 @@
+package com.middy.assignment.controller;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.middy.assignment.dto.CompactMediaTypes;
+import com.middy.assignment.dto.CompactOrderDto;
+import com.middy.assignment.dto.ScaledDecimal;
+import com.middy.assignment.dto.transformers.OrderTransformer;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.OrderService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Runs the requests of {@link OrderControllerTest} through MVC alone and through MVC behind {@link OrderIngestFilter},
+ * expecting the same status and body. The controller behind the filter has its own service mock, which shows which
+ * side handled a request.
+ */
+class OrderIngestFilterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final OrderTransformer orderTransformer = new OrderTransformer(Clock.systemDefaultZone());
+
+    private OrderService mvcService;
+    private OrderService fastPathService;
+    private OrderService fallThroughService;
+    private MockMvc mvc;
+    private MockMvc fastPath;
+
+    @BeforeEach
+    void setUp() {
+        mvcService = Mockito.mock(OrderService.class);
+        fastPathService = Mockito.mock(OrderService.class);
+        fallThroughService = Mockito.mock(OrderService.class);
+        mvc = MockMvcBuilders.standaloneSetup(new OrderController(mvcService, orderTransformer)).build();
+        fastPath = MockMvcBuilders.standaloneSetup(new OrderController(fallThroughService, orderTransformer))
+                .addFilters(new OrderIngestFilter(objectMapper, orderTransformer, fastPathService))
+                .build();
+    }
+
+    private static MockHttpServletRequestBuilder json(String body) {
+        return post("/v1/orders").contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    private void assertEquivalent(MockHttpServletRequestBuilder request) throws Exception {
+        MockHttpServletResponse expected = mvc.perform(request).andReturn().getResponse();
+        MockHttpServletResponse actual = fastPath.perform(request).andReturn().getResponse();
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getContentAsString(), actual.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should answer JSON orders with the controller's status codes without reaching MVC")
+    void shouldMatchControllerForJsonOrders() throws Exception {
+        String now = Instant.now().toString();
+        String old = Instant.ofEpochMilli(System.currentTimeMillis() - 61000).toString();
+        String future = Instant.ofEpochMilli(System.currentTimeMillis() + 60000).toString();
+        List<String> bodies = List.of(
+                "{\"amount\":\"100.00\",\"timestamp\":\"" + now + "\"}",
+                "{\"amount\":\"100.00\",\"timestamp\":\"" + old + "\"}",
+                "{\"amount\":null,\"timestamp\":null}",
+                "{\"amount\":\"not-a-number\",\"timestamp\":\"" + now + "\"}",
+                "{\"amount\":\"100.00\",\"timestamp\":\"" + future + "\"}",
+                "{\"amount\":\"100.00\",\"timestamp\":\"yesterday\"}",
+                "{\"amount\":12.5,\"timestamp\":\"" + now + "\",\"unknown\":true}",
+                "{\"amount\":\"100.00\",",
+                "[1, 2]",
+                "null",
+                "");
+
+        for (String body : bodies) {
+            assertEquivalent(json(body));
+        }
+        verify(fallThroughService, never()).addOrder(any());
+        verify(fastPathService, Mockito.times(2)).addOrder(any());
+    }
+
+    @Test
+    @DisplayName("Should pass the order id through like the controller")
+    void shouldPassOrderId() throws Exception {
+        assertEquivalent(json("{\"amount\":\"1.00\",\"timestamp\":\"" + Instant.now() + "\",\"orderId\":\"retry-1\"}")
+                .characterEncoding("UTF-8"));
+
+        verify(mvcService).addOrder(argThat(order -> "retry-1".equals(order.getOrderId())));
+        verify(fastPathService).addOrder(argThat(order -> "retry-1".equals(order.getOrderId())));
+    }
+
+    @Test
+    @DisplayName("Should answer 400 like the controller when the service fails")
+    void shouldMatchControllerOnServiceFailure() throws Exception {
+        doThrow(new IllegalStateException("boom")).when(mvcService).addOrder(any(Order.class));
+        doThrow(new IllegalStateException("boom")).when(fastPathService).addOrder(any(Order.class));
+
+        assertEquivalent(json("{\"amount\":\"1.00\",\"timestamp\":\"" + Instant.now() + "\"}"));
+    }
+
+    @Test
+    @DisplayName("Should leave binary orders and other endpoints to MVC")
+    void shouldFallThroughToMvc() throws Exception {
+        CompactOrderDto order = new CompactOrderDto(new ScaledDecimal(new BigDecimal("100.50")), Instant.now().toString());
+        assertEquivalent(post("/v1/orders").contentType(CompactMediaTypes.CBOR_VALUE)
+                .content(new CBORMapper().writeValueAsBytes(order)));
+        assertEquivalent(delete("/v1/orders"));
+        assertEquivalent(post("/v1/orders").contentType(MediaType.TEXT_PLAIN).content("100.00"));
+
+        verify(fallThroughService).addOrder(argThat(added -> added.getAmount().equals(new BigDecimal("100.50"))));
+        verify(fallThroughService).deleteAllOrders();
+        verify(fastPathService, never()).addOrder(any());
+    }
+}
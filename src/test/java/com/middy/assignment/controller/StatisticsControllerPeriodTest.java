@@ -0,0 +1,70 @@
+package com.middy.assignment.controller;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsSnapshot;
+import com.middy.assignment.service.StatisticsService;
+import com.middy.assignment.service.StatisticsVersionWatcher;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The served window must be the module's {@code stats-period-in-milliseconds}, whose version tracks expiries.
+ */
+@WebMvcTest(value = StatisticsController.class, properties = "stats-period-in-milliseconds=5000")
+class StatisticsControllerPeriodTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private Clock clock;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public StatisticsService statisticsService() {
+            return Mockito.mock(StatisticsService.class);
+        }
+
+        @Bean
+        public Clock clock() {
+            return Mockito.mock(Clock.class);
+        }
+
+        @Bean
+        public StatisticsVersionWatcher statisticsVersionWatcher() {
+            return Mockito.mock(StatisticsVersionWatcher.class);
+        }
+    }
+
+    @Test
+    void getStatistics_usesConfiguredPeriod() throws Exception {
+        long currentTime = 1696800000000L;
+        when(clock.millis()).thenReturn(currentTime);
+        Statistics stats = Statistics.of(BigDecimal.ONE, 1, BigDecimal.ONE, BigDecimal.ONE, 0);
+        when(statisticsService.getStatisticsSnapshot(currentTime, 5000))
+                .thenReturn(new StatisticsSnapshot(0L, stats, new byte[0]));
+
+        mockMvc.perform(get("/v1/statistics"))
+                .andExpect(status().isOk());
+
+        verify(statisticsService).getStatisticsSnapshot(currentTime, 5000);
+    }
+}
@@ -2,7 +2,14 @@ package com.middy.assignment.controller;
 
 import java.math.BigDecimal;
 import java.time.Clock;
-
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.Mockito;
@@ -12,16 +19,31 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.middy.assignment.dto.CompactMediaTypes;
+import com.middy.assignment.dto.CompactStatisticsDto;
+import com.middy.assignment.dto.StatisticsDto;
+import com.middy.assignment.model.OrderRates;
+import com.middy.assignment.model.Rates;
 import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsPoint;
+import com.middy.assignment.model.StatisticsSnapshot;
 import com.middy.assignment.service.StatisticsService;
+import com.middy.assignment.service.StatisticsVersionWatcher;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -31,8 +53,12 @@ class StatisticsControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static StatisticsService mockStatisticsService;
     private static Clock mockClock;
+    private static StatisticsVersionWatcher mockVersionWatcher;
 
     @TestConfiguration
     static class TestConfig {
@@ -47,11 +73,17 @@ class StatisticsControllerTest {
             mockClock = Mockito.mock(Clock.class);
             return mockClock;
         }
+
+        @Bean
+        public StatisticsVersionWatcher statisticsVersionWatcher() {
+            mockVersionWatcher = Mockito.mock(StatisticsVersionWatcher.class);
+            return mockVersionWatcher;
+        }
     }
 
     @BeforeEach
     void setUp() {
-        Mockito.reset(mockStatisticsService, mockClock);
+        Mockito.reset(mockStatisticsService, mockClock, mockVersionWatcher);
     }
 
     @Test
@@ -68,7 +100,7 @@ class StatisticsControllerTest {
                 5L
         );
 
-        when(mockStatisticsService.getStatistics(currentTime, 60000)).thenReturn(mockStats);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(0L, mockStats));
 
         // When & Then
         mockMvc.perform(get("/v1/statistics"))
@@ -80,7 +112,7 @@ class StatisticsControllerTest {
                 .andExpect(jsonPath("$.min").value("100.75"))
                 .andExpect(jsonPath("$.count").value(5));
 
-        verify(mockStatisticsService).getStatistics(currentTime, 60000);
+        verify(mockStatisticsService).getStatisticsSnapshot(currentTime, 60000);
     }
 
     @Test
@@ -97,7 +129,7 @@ class StatisticsControllerTest {
                 0L
         );
 
-        when(mockStatisticsService.getStatistics(currentTime, 60000)).thenReturn(emptyStats);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(0L, emptyStats));
 
         // When & Then
         mockMvc.perform(get("/v1/statistics"))
@@ -107,9 +139,23 @@ class StatisticsControllerTest {
                 .andExpect(jsonPath("$.avg").value("0"))
                 .andExpect(jsonPath("$.max").value("0"))
                 .andExpect(jsonPath("$.min").value("0"))
-                .andExpect(jsonPath("$.count").value(0));
+                .andExpect(jsonPath("$.count").value(0))
+                .andExpect(jsonPath("$.estimated").doesNotExist());
+
+        verify(mockStatisticsService).getStatisticsSnapshot(currentTime, 60000);
+    }
 
-        verify(mockStatisticsService).getStatistics(currentTime, 60000);
+    @Test
+    void getStatistics_sampledIngest_flagsEstimate() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        Statistics estimated = Statistics.of(new BigDecimal("80.00"), 8, BigDecimal.TEN, BigDecimal.TEN, 0).asEstimated();
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(0L, estimated));
+
+        mockMvc.perform(get("/v1/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(8))
+                .andExpect(jsonPath("$.estimated").value(true));
     }
 
     @Test
@@ -118,7 +164,7 @@ class StatisticsControllerTest {
         long currentTime = 1696800000000L;
         when(mockClock.millis()).thenReturn(currentTime);
 
-        when(mockStatisticsService.getStatistics(anyLong(), anyInt()))
+        when(mockStatisticsService.getStatisticsSnapshot(anyLong(), anyInt()))
                 .thenThrow(new RuntimeException("Unknoewn error"));
 
         // When & Then
@@ -126,7 +172,7 @@ class StatisticsControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string(""));
 
-        verify(mockStatisticsService).getStatistics(currentTime, 60000);
+        verify(mockStatisticsService).getStatisticsSnapshot(currentTime, 60000);
     }
 
     @Test
@@ -135,7 +181,7 @@ class StatisticsControllerTest {
         long currentTime = 1696800000000L;
         when(mockClock.millis()).thenReturn(currentTime);
 
-        when(mockStatisticsService.getStatistics(anyLong(), anyInt()))
+        when(mockStatisticsService.getStatisticsSnapshot(anyLong(), anyInt()))
                 .thenThrow(new NullPointerException("Null reference"));
 
         // When & Then
@@ -143,7 +189,7 @@ class StatisticsControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string(""));
 
-        verify(mockStatisticsService).getStatistics(currentTime, 60000);
+        verify(mockStatisticsService).getStatisticsSnapshot(currentTime, 60000);
     }
 
     @Test
@@ -160,7 +206,7 @@ class StatisticsControllerTest {
                 1000000L
         );
 
-        when(mockStatisticsService.getStatistics(currentTime, 60000)).thenReturn(largeStats);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(0L, largeStats));
 
         // When & Then
         mockMvc.perform(get("/v1/statistics"))
@@ -172,7 +218,7 @@ class StatisticsControllerTest {
                 .andExpect(jsonPath("$.min").value("0.01"))
                 .andExpect(jsonPath("$.count").value(1000000));
 
-        verify(mockStatisticsService).getStatistics(currentTime, 60000);
+        verify(mockStatisticsService).getStatisticsSnapshot(currentTime, 60000);
     }
 
     @Test
@@ -184,11 +230,304 @@ class StatisticsControllerTest {
                 BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L
         );
 
-        when(mockStatisticsService.getStatistics(currentTime, 60000)).thenReturn(mockStats);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(0L, mockStats));
 
         mockMvc.perform(get("/v1/statistics"))
                 .andExpect(status().isOk());
 
-        verify(mockStatisticsService).getStatistics(currentTime, 60000);
+        verify(mockStatisticsService).getStatisticsSnapshot(currentTime, 60000);
+    }
+
+    @Test
+    void getHistory_success_returns200WithPoints() throws Exception {
+        long from = 1696800000000L;
+        long to = from + 120000;
+        when(mockStatisticsService.getHistory(from, to, 60000)).thenReturn(List.of(
+                new StatisticsPoint(from, new Statistics(
+                        new BigDecimal("40.00"), new BigDecimal("20.00"), new BigDecimal("30.00"), new BigDecimal("10.00"), 2L)),
+                new StatisticsPoint(from + 60000, new Statistics(
+                        new BigDecimal("0.00"), new BigDecimal("0.00"), new BigDecimal("0.00"), new BigDecimal("0.00"), 0L))
+        ));
+
+        mockMvc.perform(get("/v1/statistics/history")
+                        .param("from", "2023-10-08T21:20:00Z")
+                        .param("to", "2023-10-08T21:22:00Z")
+                        .param("step", "1m"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].timestamp").value("2023-10-08T21:20:00Z"))
+                .andExpect(jsonPath("$[0].sum").value("40.00"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[1].timestamp").value("2023-10-08T21:21:00Z"))
+                .andExpect(jsonPath("$[1].count").value(0));
+
+        verify(mockStatisticsService).getHistory(from, to, 60000);
+    }
+
+    @Test
+    void getHistory_invalidTimestamp_returns400() throws Exception {
+        mockMvc.perform(get("/v1/statistics/history")
+                        .param("from", "yesterday")
+                        .param("step", "1m"))
+                .andExpect(status().isBadRequest());
+
+        verify(mockStatisticsService, never()).getHistory(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void getHistory_unsupportedStep_returns400() throws Exception {
+        when(mockClock.millis()).thenReturn(1696800000000L);
+        when(mockStatisticsService.getHistory(anyLong(), anyLong(), anyLong()))
+                .thenThrow(new IllegalArgumentException("Unsupported step"));
+
+        mockMvc.perform(get("/v1/statistics/history").param("step", "1s"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getStatistics_withRange_usesRangeQuery() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getRangeStatistics(currentTime, currentTime - 5000, currentTime + 1)).thenReturn(
+                new Statistics(new BigDecimal("60.00"), new BigDecimal("30.00"), new BigDecimal("40.00"), new BigDecimal("20.00"), 2L));
+
+        mockMvc.perform(get("/v1/statistics").param("from", "2023-10-08T21:19:55Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sum").value("60.00"))
+                .andExpect(jsonPath("$.count").value(2));
+
+        verify(mockStatisticsService).getRangeStatistics(currentTime, currentTime - 5000, currentTime + 1);
+        verify(mockStatisticsService, never()).getStatisticsSnapshot(anyLong(), anyInt());
+    }
+
+    @Test
+    void getStatistics_rangeOutsideWindow_returns400() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getRangeStatistics(anyLong(), anyLong(), anyLong()))
+                .thenThrow(new IllegalArgumentException("Range outside window"));
+
+        mockMvc.perform(get("/v1/statistics")
+                        .param("from", "2023-10-08T21:00:00Z")
+                        .param("to", "2023-10-08T21:20:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getStatistics_returnsETagOfWindowVersion() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getWindowVersion(currentTime)).thenReturn(42L);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(42L,
+                new Statistics(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L)));
+
+        String etag = mockMvc.perform(get("/v1/statistics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertTrue(etag.matches("\"[0-9a-f]+-42\""));
+    }
+
+    @Test
+    void getStatistics_matchingIfNoneMatch_returns304WithoutComputing() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getWindowVersion(currentTime)).thenReturn(42L);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(42L,
+                new Statistics(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L)));
+        String etag = mockMvc.perform(get("/v1/statistics")).andReturn().getResponse().getHeader("ETag");
+        Mockito.clearInvocations(mockStatisticsService);
+
+        mockMvc.perform(get("/v1/statistics").header("If-None-Match", "\"other\", W/" + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        verify(mockStatisticsService, never()).getStatisticsSnapshot(anyLong(), anyInt());
+    }
+
+    @Test
+    void getStatistics_staleIfNoneMatch_returns200() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        Statistics stats = new Statistics(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L);
+        when(mockStatisticsService.getWindowVersion(currentTime)).thenReturn(42L, 43L);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(42L, stats), snapshot(43L, stats));
+        String etag = mockMvc.perform(get("/v1/statistics")).andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/v1/statistics").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag.replace("-42", "-43")))
+                .andExpect(jsonPath("$.count").value(1));
+    }
+
+    @Test
+    void awaitStatistics_versionChanges_returns200WithNewSnapshot() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getWindowVersion(currentTime)).thenReturn(42L);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(42L,
+                new Statistics(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L)));
+        String etag = mockMvc.perform(get("/v1/statistics")).andReturn().getResponse().getHeader("ETag");
+        when(mockVersionWatcher.awaitChange(42L, 5000L)).thenReturn(CompletableFuture.completedFuture(Optional.of(
+                snapshot(43L, new Statistics(new BigDecimal("60.00"), new BigDecimal("30.00"),
+                        new BigDecimal("40.00"), new BigDecimal("20.00"), 2L)))));
+
+        MvcResult pending = mockMvc.perform(get("/v1/statistics").param("wait", "5000").header("If-None-Match", etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag.replace("-42", "-43")))
+                .andExpect(jsonPath("$.sum").value("60.00"))
+                .andExpect(jsonPath("$.count").value(2));
+    }
+
+    @Test
+    void awaitStatistics_noChangeWithinWait_returns304() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getWindowVersion(currentTime)).thenReturn(42L);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(42L,
+                new Statistics(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L)));
+        String etag = mockMvc.perform(get("/v1/statistics")).andReturn().getResponse().getHeader("ETag");
+        Mockito.clearInvocations(mockStatisticsService);
+        // Longer than the configured maximum, so the wait is capped
+        when(mockVersionWatcher.awaitChange(42L, 30000L)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        MvcResult pending = mockMvc.perform(get("/v1/statistics").param("wait", "600000").header("If-None-Match", etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verify(mockStatisticsService, never()).getStatisticsSnapshot(anyLong(), anyInt());
+    }
+
+    @Test
+    void awaitStatistics_withoutMatchingETag_returnsImmediately() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getWindowVersion(currentTime)).thenReturn(42L);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(42L,
+                new Statistics(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L)));
+
+        MvcResult pending = mockMvc.perform(get("/v1/statistics").param("wait", "5000"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1));
+        verify(mockVersionWatcher, never()).awaitChange(anyLong(), anyLong());
+    }
+
+    @Test
+    void getStatistics_acceptAny_returnsJson() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(0L,
+                new Statistics(new BigDecimal("1.00"), new BigDecimal("1.00"), new BigDecimal("1.00"), new BigDecimal("1.00"), 1L)));
+
+        mockMvc.perform(get("/v1/statistics").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.sum").value("1.00"));
+    }
+
+    @Test
+    void getStatistics_acceptCbor_returnsScaledAmounts() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getWindowVersion(currentTime)).thenReturn(42L);
+        when(mockStatisticsService.getStatisticsSnapshot(currentTime, 60000)).thenReturn(snapshot(42L,
+                new Statistics(new BigDecimal("1500.50"), new BigDecimal("300.10"), new BigDecimal("500.25"), new BigDecimal("100.75"), 5L)));
+
+        MvcResult result = mockMvc.perform(get("/v1/statistics").accept(CompactMediaTypes.CBOR_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CompactMediaTypes.CBOR_VALUE))
+                .andReturn();
+        CompactStatisticsDto body = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), CompactStatisticsDto.class);
+
+        assertEquals(new BigDecimal("1500.50"), body.getSum().toBigDecimal());
+        assertEquals(150050L, body.getSum().getUnscaled().longValue());
+        assertEquals(2, body.getSum().getScale());
+        assertEquals(new BigDecimal("100.75"), body.getMin().toBigDecimal());
+        assertEquals(5L, body.getCount());
+        String etag = result.getResponse().getHeader("ETag");
+        assertTrue(etag.matches("W/\"[0-9a-f]+-42\""));
+
+        mockMvc.perform(get("/v1/statistics").accept(CompactMediaTypes.SMILE_VALUE).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getStatistics_acceptSmileWithRange_usesRangeQuery() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getRangeStatistics(currentTime, currentTime - 5000, currentTime + 1)).thenReturn(
+                new Statistics(new BigDecimal("60.00"), new BigDecimal("30.00"), new BigDecimal("40.00"), new BigDecimal("20.00"), 2L));
+
+        MvcResult result = mockMvc.perform(get("/v1/statistics").param("from", "2023-10-08T21:19:55Z")
+                        .accept(CompactMediaTypes.SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CompactMediaTypes.SMILE_VALUE))
+                .andReturn();
+        CompactStatisticsDto body = new SmileMapper().readValue(result.getResponse().getContentAsByteArray(), CompactStatisticsDto.class);
+
+        assertEquals(new BigDecimal("60.00"), body.getSum().toBigDecimal());
+        assertEquals(2L, body.getCount());
+    }
+
+    @Test
+    void getSeries_returnsPointsPerStep() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getSeries(currentTime, 5000)).thenReturn(List.of(
+                new StatisticsPoint(currentTime - 5000, Statistics.of(new BigDecimal("30.00"), 2, new BigDecimal("10.00"), new BigDecimal("20.00"), 50)),
+                new StatisticsPoint(currentTime, Statistics.of(BigDecimal.ZERO, 0, null, null, 0))));
+
+        mockMvc.perform(get("/v1/statistics/series").param("step", "5s"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].timestamp").value("2023-10-08T21:19:55Z"))
+                .andExpect(jsonPath("$[0].sum").value("30.00"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[0].stddev").value("5.00"))
+                .andExpect(jsonPath("$[1].count").value(0));
+    }
+
+    @Test
+    void getSeries_unsupportedStep_returnsBadRequest() throws Exception {
+        when(mockClock.millis()).thenReturn(1696800000000L);
+        when(mockStatisticsService.getSeries(anyLong(), anyLong())).thenThrow(new IllegalArgumentException("step"));
+
+        mockMvc.perform(get("/v1/statistics/series").param("step", "7ms"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/statistics/series").param("step", "soon"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getRates_returnsDecayedRates() throws Exception {
+        long currentTime = 1696800000000L;
+        when(mockClock.millis()).thenReturn(currentTime);
+        when(mockStatisticsService.getRates(currentTime)).thenReturn(
+                new OrderRates(new Rates(2.0, 1.5, 0.5), new Rates(20.0, 15.0, 5.0)));
+
+        mockMvc.perform(get("/v1/statistics/rates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.oneMinute").value(2.0))
+                .andExpect(jsonPath("$.orders.fiveMinute").value(1.5))
+                .andExpect(jsonPath("$.orders.fifteenMinute").value(0.5))
+                .andExpect(jsonPath("$.amount.oneMinute").value(20.0))
+                .andExpect(jsonPath("$.amount.fifteenMinute").value(5.0));
+    }
+
+    private StatisticsSnapshot snapshot(long version, Statistics stats) throws JsonProcessingException {
+        // Encoded by the context's mapper, as StatisticsServiceImpl does
+        return new StatisticsSnapshot(version, stats, objectMapper.writeValueAsBytes(new StatisticsDto(stats)));
     }
 }
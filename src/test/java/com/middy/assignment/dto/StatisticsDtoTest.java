@@ -0,0 +1,49 @@
+package com.middy.assignment.dto;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+import com.middy.assignment.model.Statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statistics bodies as the application's {@link ObjectMapper}, configured by {@code spring.jackson.*}, writes them.
+ * Cached window snapshots are encoded by the same mapper.
+ */
+@JsonTest
+class StatisticsDtoTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String json(Statistics stat) throws Exception {
+        return objectMapper.writeValueAsString(new StatisticsDto(stat));
+    }
+
+    @Test
+    @DisplayName("Should write amounts as strings and flag only estimated statistics")
+    void shouldWriteDocumentedShape() throws Exception {
+        Statistics stat = Statistics.of(new BigDecimal("1500.5"), 5, new BigDecimal("100.75"), new BigDecimal("500.25"), 123456.789);
+
+        assertEquals("{\"sum\":\"1500.50\",\"avg\":\"300.10\",\"max\":\"500.25\",\"min\":\"100.75\",\"count\":5,"
+                + "\"variance\":\"24691.36\",\"stddev\":\"157.13\"}", json(stat));
+        assertEquals("{\"sum\":\"640.00\",\"avg\":\"10.00\",\"max\":\"10.00\",\"min\":\"10.00\",\"count\":64,"
+                        + "\"variance\":\"0.00\",\"stddev\":\"0.00\",\"estimated\":true}",
+                json(Statistics.of(new BigDecimal("640.00"), 64, BigDecimal.TEN, BigDecimal.TEN, 0).asEstimated()));
+    }
+
+    @Test
+    @DisplayName("Should write an unavailable variance as null")
+    void shouldWriteMissingVarianceAsNull() throws Exception {
+        Statistics stat = Statistics.of(new BigDecimal("1e400"), 2, BigDecimal.ONE, new BigDecimal("1e400"), Double.NaN);
+
+        assertEquals(objectMapper.readTree("{\"variance\":null}").get("variance"),
+                objectMapper.readTree(json(stat)).get("variance"));
+    }
+}
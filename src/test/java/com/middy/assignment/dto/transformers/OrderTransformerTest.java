@@ -0,0 +1,46 @@
+package com.middy.assignment.dto.transformers;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.middy.assignment.dto.OrderDto;
+import com.middy.assignment.exception.OrderValidationException;
+import com.middy.assignment.metrics.StatisticsMetrics;
+
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderTransformerTest {
+
+    private static final long NOW = 1696500000000L;
+
+    private static OrderDto orderAgo(long millis) {
+        return new OrderDto("1.00", Instant.ofEpochMilli(NOW - millis).toString());
+    }
+
+    @Test
+    @DisplayName("Should accept orders within a window longer than a minute")
+    void shouldFollowConfiguredPeriod() {
+        OrderTransformer transformer = new OrderTransformer(Clock.fixed(Instant.ofEpochMilli(NOW), UTC),
+                StatisticsMetrics.disabled(), 300_000);
+
+        assertEquals(NOW - 120_000, transformer.validateAndTransformToOrder(orderAgo(120_000)).getTimestamp());
+        assertEquals(NOW - 299_999, transformer.validateAndTransformToOrder(orderAgo(299_999)).getTimestamp());
+        assertThrows(OrderValidationException.OldOrderException.class,
+                () -> transformer.validateAndTransformToOrder(orderAgo(300_000)));
+    }
+
+    @Test
+    @DisplayName("Should reject an order exactly one period old, like the module")
+    void shouldExcludePeriodBoundary() {
+        OrderTransformer transformer = new OrderTransformer(Clock.fixed(Instant.ofEpochMilli(NOW), UTC));
+
+        assertEquals(NOW - 59_999, transformer.validateAndTransformToOrder(orderAgo(59_999)).getTimestamp());
+        assertThrows(OrderValidationException.OldOrderException.class,
+                () -> transformer.validateAndTransformToOrder(orderAgo(60_000)));
+    }
+}
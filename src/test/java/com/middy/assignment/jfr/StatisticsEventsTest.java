@@ -0,0 +1,100 @@
+package com.middy.assignment.jfr;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.StatisticsModule;
+
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatisticsEventsTest {
+
+    private static final int STATS_PERIOD = 60000;
+    // 2023-10-05T10:30:00Z
+    private static final long NOW = 1696501800000L;
+
+    @TempDir
+    Path tempDir;
+
+    private List<RecordedEvent> record(Recording recording, Runnable workload) throws Exception {
+        Path file = tempDir.resolve("events.jfr");
+        recording.start();
+        workload.run();
+        recording.stop();
+        recording.dump(file);
+        recording.close();
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("com.middy.assignment."))
+                .toList();
+    }
+
+    private void addTwoOrdersAndQuery() {
+        StatisticsModule module = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(NOW), UTC), STATS_PERIOD);
+        module.addOrder(new Order(new BigDecimal("10.00"), NOW - 5));
+        module.addOrder(new Order(new BigDecimal("20.00"), NOW - 7));
+        module.getStatistics(NOW, STATS_PERIOD);
+    }
+
+    @Test
+    @DisplayName("Should record ingest and scan events without thresholds")
+    void shouldRecordEvents() throws Exception {
+        Recording recording = new Recording();
+        recording.enable(OrderIngestEvent.class).withoutThreshold();
+        recording.enable(StatisticsScanEvent.class).withoutThreshold();
+
+        List<RecordedEvent> events = record(recording, this::addTwoOrdersAndQuery);
+
+        List<RecordedEvent> ingests = events.stream().filter(e -> e.getEventType().getName().equals(OrderIngestEvent.NAME)).toList();
+        assertEquals(2, ingests.size());
+        assertEquals((NOW - 5) % (STATS_PERIOD + 1), ingests.get(0).getInt("bucketIndex"));
+        assertFalse(ingests.get(0).getBoolean("recycled"));
+
+        List<RecordedEvent> scans = events.stream().filter(e -> e.getEventType().getName().equals(StatisticsScanEvent.NAME)).toList();
+        assertEquals(1, scans.size());
+        assertEquals(STATS_PERIOD, scans.get(0).getLong("bucketsScanned"));
+        assertEquals(2, scans.get(0).getLong("populatedBuckets"));
+        assertEquals(2, scans.get(0).getLong("orders"));
+    }
+
+    @Test
+    @DisplayName("Should leave out events faster than the threshold")
+    void shouldApplyThreshold() throws Exception {
+        Recording recording = new Recording();
+        recording.enable(OrderIngestEvent.class).withThreshold(Duration.ofSeconds(10));
+        recording.enable(StatisticsScanEvent.class).withThreshold(Duration.ofSeconds(10));
+
+        assertTrue(record(recording, this::addTwoOrdersAndQuery).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should ship settings enabling both events")
+    void shouldShipSettings() throws Exception {
+        Configuration settings = StatisticsRecording.loadSettings();
+
+        Set<String> enabled = settings.getSettings().entrySet().stream()
+                .filter(setting -> setting.getKey().endsWith("#enabled") && setting.getValue().equals("true"))
+                .map(setting -> setting.getKey().substring(0, setting.getKey().indexOf('#')))
+                .collect(Collectors.toSet());
+        assertTrue(enabled.contains(OrderIngestEvent.NAME));
+        assertTrue(enabled.contains(StatisticsScanEvent.NAME));
+        assertEquals("1 ms", settings.getSettings().get(OrderIngestEvent.NAME + "#threshold"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.middy.assignment.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestTracerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private RequestTracer tracer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        tracer.shutdown();
+    }
+
+    private void perform(TraceInterceptor interceptor, String uri, int status, Object body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        if (tracer.needsBody(request.getAttribute(TraceInterceptor.SAMPLED_ATTRIBUTE) != null)) {
+            request.setAttribute(TraceInterceptor.BODY_ATTRIBUTE, body);
+        }
+        response.setStatus(status);
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    @Test
+    @DisplayName("Should write sampled requests as JSON lines from the writer thread")
+    void shouldWriteSampledRequests() throws Exception {
+        tracer = new RequestTracer(registry, 1, 0, 16, line -> lines.add(Thread.currentThread().getName() + " " + line));
+        TraceInterceptor interceptor = new TraceInterceptor(tracer);
+
+        perform(interceptor, "/v1/statistics", 200, "{\"count\":1}".getBytes(StandardCharsets.UTF_8));
+
+        String line = lines.poll(5, TimeUnit.SECONDS);
+        assertTrue(line.startsWith("request-trace-writer "));
+        JsonNode json = new ObjectMapper().readTree(line.substring(line.indexOf(' ') + 1));
+        assertEquals("GET", json.get("method").asText());
+        assertEquals("/v1/statistics", json.get("uri").asText());
+        assertEquals(200, json.get("status").asInt());
+        assertEquals("sampled", json.get("reason").asText());
+        assertEquals(1, json.get("body").get("count").asInt());
+    }
+
+    @Test
+    @DisplayName("Should trace unsampled requests by status only")
+    void shouldTraceByStatus() throws Exception {
+        tracer = new RequestTracer(registry, 0, 500, 16, lines::add);
+        TraceInterceptor interceptor = new TraceInterceptor(tracer);
+
+        perform(interceptor, "/v1/orders", 201, null);
+        perform(interceptor, "/v1/statistics", 500, null);
+
+        JsonNode json = new ObjectMapper().readTree(lines.poll(5, TimeUnit.SECONDS));
+        assertEquals("/v1/statistics", json.get("uri").asText());
+        assertEquals("status", json.get("reason").asText());
+        assertNull(lines.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("Should drop records instead of blocking when the queue is full")
+    void shouldDropWhenQueueFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        tracer = new RequestTracer(registry, 1, 0, 1, line -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lines.add(line);
+        });
+        TraceInterceptor interceptor = new TraceInterceptor(tracer);
+
+        // The writer holds the first record, the queue the second, the rest is dropped
+        perform(interceptor, "/v1/statistics", 200, null);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            perform(interceptor, "/v1/statistics", 200, null);
+        }
+        release.countDown();
+
+        assertEquals(4.0, registry.get("trace.records.dropped").counter().count());
+        assertTrue(lines.poll(5, TimeUnit.SECONDS) != null);
+        assertTrue(lines.poll(5, TimeUnit.SECONDS) != null);
+    }
+
+    @Test
+    @DisplayName("Should not keep bodies or trace anything with both sampling and status tracing off")
+    void shouldTraceNothingWhenOff() throws Exception {
+        tracer = new RequestTracer(registry, 0, 0, 16, lines::add);
+
+        assertFalse(tracer.sampleRequest());
+        assertFalse(tracer.needsBody(false));
+        assertFalse(tracer.shouldTrace(false, 500));
+    }
+}
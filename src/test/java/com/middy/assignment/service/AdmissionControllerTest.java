@@ -0,0 +1,97 @@
+package com.middy.assignment.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+
+    private static final long TARGET_MICROS = 5_000;
+    // Long enough that admissions in the test never close an interval on their own
+    private static final long INTERVAL_MILLIS = 600_000;
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(INTERVAL_MILLIS);
+    private static final long ABOVE_TARGET = TimeUnit.MICROSECONDS.toNanos(TARGET_MICROS) + 1;
+
+    private final AdmissionController controller = new AdmissionController(true, 4, TARGET_MICROS, INTERVAL_MILLIS, 10);
+    private long time = System.nanoTime();
+
+    private void interval(long minDelayNanos) {
+        time += INTERVAL;
+        controller.observe(minDelayNanos, time);
+    }
+
+    @Test
+    @DisplayName("Should record every order with weight 1 when disabled or not overloaded")
+    void shouldRecordExactly() {
+        AdmissionController disabled = new AdmissionController(false, 1, TARGET_MICROS, INTERVAL_MILLIS, 10);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, disabled.admit());
+            assertEquals(1, controller.admit());
+            controller.release();
+        }
+        assertFalse(controller.isSampling());
+        assertEquals(1.0, controller.getSamplingProbability());
+    }
+
+    @Test
+    @DisplayName("Should halve the sampling probability per interval with a standing queue, up to the limit")
+    void shouldRaiseSamplingLevel() {
+        interval(ABOVE_TARGET);
+        assertTrue(controller.isSampling());
+        assertEquals(0.5, controller.getSamplingProbability());
+
+        interval(ABOVE_TARGET);
+        assertEquals(0.25, controller.getSamplingProbability());
+
+        for (int i = 0; i < 20; i++) {
+            interval(ABOVE_TARGET);
+        }
+        assertEquals(1.0 / 1024, controller.getSamplingProbability());
+    }
+
+    @Test
+    @DisplayName("Should return to exact mode once the queue drains or ingest goes idle")
+    void shouldReturnToExact() {
+        for (int i = 0; i < 3; i++) {
+            interval(ABOVE_TARGET);
+        }
+        // One short wait in an interval means there is no standing queue
+        controller.observe(ABOVE_TARGET, time + 1);
+        interval(0);
+        assertEquals(0.25, controller.getSamplingProbability());
+
+        // Four idle intervals before the next order
+        time += 4 * INTERVAL;
+        interval(0);
+        assertFalse(controller.isSampling());
+    }
+
+    @Test
+    @DisplayName("Should keep the weighted count of sampled orders unbiased")
+    void shouldWeightSampledOrders() {
+        for (int i = 0; i < 3; i++) {
+            interval(ABOVE_TARGET);
+        }
+
+        long orders = 80_000;
+        long recorded = 0;
+        long weightedCount = 0;
+        for (int i = 0; i < orders; i++) {
+            long weight = controller.admit();
+            if (weight > 0) {
+                assertEquals(8, weight);
+                recorded++;
+                weightedCount += weight;
+                controller.release();
+            }
+        }
+
+        assertTrue(recorded < orders / 4, "recorded: " + recorded);
+        assertEquals(orders, weightedCount, orders * 0.05);
+    }
+}
@@ -0,0 +1,101 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.model.InterimStatistics;
+import com.middy.assignment.model.Order;
+
+import io.opentelemetry.api.trace.Span;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BucketStoreTest {
+
+    private static final int STATS_PERIOD = 60000;
+    // 2023-10-05T10:30:00Z
+    private static final long NOW = 1696501800000L;
+
+    private BucketStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new BucketStore(STATS_PERIOD, 1, false);
+    }
+
+    private void add(long generation, long timestamp, String amount) {
+        store.add(generation, timestamp, new Order(new BigDecimal(amount), timestamp), 1, null, StatisticsMetrics.disabled(), Span.getInvalid());
+    }
+
+    private InterimStatistics scan(long generation, long now) {
+        InterimStatistics aggregate = new InterimStatistics();
+        store.scan(generation, now - STATS_PERIOD + 1, now, now - STATS_PERIOD, aggregate);
+        return aggregate;
+    }
+
+    @Test
+    @DisplayName("Should aggregate occupied slots inside the window and drop expired ones")
+    void shouldAggregateOccupiedSlots() {
+        add(0, NOW, "10.00");
+        add(0, NOW - 63, "20.00");
+        add(0, NOW - 64, "30.00");
+        add(0, NOW - STATS_PERIOD, "40.00");
+        assertEquals(4, store.occupiedSlots());
+
+        InterimStatistics aggregate = scan(0, NOW);
+
+        // The expired bucket is left out and its bit dropped
+        assertEquals(3, store.occupiedSlots());
+        assertEquals(3, aggregate.getCount());
+        assertEquals(new BigDecimal("60.00"), aggregate.getSum());
+        assertEquals(new BigDecimal("10.00"), aggregate.getMin());
+        assertEquals(new BigDecimal("30.00"), aggregate.getMax());
+    }
+
+    @Test
+    @DisplayName("Should aggregate dense words like sparse ones")
+    void shouldAggregateDenseWords() {
+        for (int age = 0; age < 200; age++) {
+            add(0, NOW - age, "1.00");
+        }
+
+        InterimStatistics aggregate = scan(0, NOW);
+
+        assertEquals(200, store.occupiedSlots());
+        assertEquals(200, aggregate.getCount());
+        assertEquals(new BigDecimal("200.00"), aggregate.getSum());
+    }
+
+    @Test
+    @DisplayName("Should clear the bits of expired buckets during the scan and set them again on reuse")
+    void shouldClearExpiredBits() {
+        for (int age = 0; age < 100; age++) {
+            add(0, NOW - age, "1.00");
+        }
+        long later = NOW + STATS_PERIOD;
+
+        assertEquals(0, scan(0, later).getCount());
+        assertEquals(0, store.occupiedSlots());
+
+        add(0, later, "5.00");
+        InterimStatistics aggregate = scan(0, later);
+
+        assertEquals(1, store.occupiedSlots());
+        assertEquals(1, aggregate.getCount());
+        assertEquals(new BigDecimal("5.00"), aggregate.getSum());
+    }
+
+    @Test
+    @DisplayName("Should clear the bits of buckets from an older generation")
+    void shouldClearDeletedBits() {
+        add(0, NOW, "1.00");
+        add(0, NOW - 1, "2.00");
+
+        assertEquals(0, scan(1, NOW).getCount());
+        assertEquals(0, store.occupiedSlots());
+    }
+}
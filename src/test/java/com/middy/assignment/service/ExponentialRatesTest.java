@@ -0,0 +1,121 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.middy.assignment.model.OrderRates;
+import com.middy.assignment.model.Order;
+
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class ExponentialRatesTest {
+
+    // 2023-10-05T10:30:00Z
+    private static final long START = 1696501800000L;
+    private static final long TICK = ExponentialRates.TICK_INTERVAL_MILLIS;
+
+    private final ExponentialRates rates = new ExponentialRates(START);
+
+    @Test
+    @DisplayName("Should report zero before the first tick")
+    void shouldBeZeroBeforeFirstTick() {
+        rates.mark(BigDecimal.TEN, START + 1);
+
+        OrderRates current = rates.getRates(START + TICK - 1);
+
+        assertEquals(0.0, current.getOrders().getOneMinute());
+        assertEquals(0.0, current.getAmount().getFifteenMinute());
+    }
+
+    @Test
+    @DisplayName("Should start every average at the rate of the first tick")
+    void shouldStartAtFirstTickRate() {
+        for (int i = 0; i < 10; i++) {
+            rates.mark(new BigDecimal("2.50"), START + i);
+        }
+
+        OrderRates current = rates.getRates(START + TICK);
+
+        assertEquals(2.0, current.getOrders().getOneMinute(), 1e-9);
+        assertEquals(2.0, current.getOrders().getFifteenMinute(), 1e-9);
+        assertEquals(5.0, current.getAmount().getFiveMinute(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should converge to a steady rate")
+    void shouldConvergeToSteadyRate() {
+        // 4 orders per second for an hour
+        for (long t = START; t < START + 3_600_000L; t += 250) {
+            rates.mark(BigDecimal.ONE, t);
+        }
+
+        OrderRates current = rates.getRates(START + 3_600_000L);
+
+        assertEquals(4.0, current.getOrders().getOneMinute(), 1e-6);
+        assertEquals(4.0, current.getOrders().getFifteenMinute(), 1e-6);
+        assertEquals(4.0, current.getAmount().getFiveMinute(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Should decay idle periods like load averages")
+    void shouldDecayWhileIdle() {
+        for (int i = 0; i < 50; i++) {
+            rates.mark(BigDecimal.ONE, START + i);
+        }
+        assertEquals(10.0, rates.getRates(START + TICK).getOrders().getOneMinute(), 1e-9);
+
+        // One minute without orders: e^-1 of the one minute average is left, e^-(1/15) of the fifteen minute one
+        OrderRates current = rates.getRates(START + TICK + 60_000L);
+
+        assertEquals(10.0 * Math.exp(-1), current.getOrders().getOneMinute(), 1e-9);
+        assertEquals(10.0 * Math.exp(-1.0 / 15), current.getOrders().getFifteenMinute(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should leave amounts beyond the double range out of the amount rate")
+    void shouldSkipNonFiniteAmounts() {
+        rates.mark(new BigDecimal("1e400"), START);
+        rates.mark(new BigDecimal("1e308"), 10L, START + 1);
+        rates.mark(new BigDecimal("10.00"), START + 2);
+        assertEquals(2.0, rates.getRates(START + TICK).getAmount().getOneMinute(), 1e-9);
+
+        // Finite on their own, infinite together
+        rates.mark(new BigDecimal("1e308"), START + TICK);
+        rates.mark(new BigDecimal("1e308"), START + TICK);
+        rates.mark(new BigDecimal("10.00"), START + 2 * TICK);
+        OrderRates current = rates.getRates(START + 3 * TICK);
+
+        assertTrue(Double.isFinite(current.getAmount().getOneMinute()));
+        assertTrue(Double.isFinite(current.getAmount().getFifteenMinute()));
+        assertTrue(current.getAmount().getOneMinute() > 0);
+    }
+
+    @Test
+    @DisplayName("Should be fed by accepted orders of the module and ticked by its clock")
+    void shouldBeFedByModule() {
+        AtomicLong now = new AtomicLong(START);
+        Clock clock = Mockito.mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(now.get()));
+        when(clock.getZone()).thenReturn(UTC);
+        StatisticsModule module = new StatisticsModule(clock, 60000);
+
+        module.addOrder(new Order(new BigDecimal("10.00"), START));
+        module.addOrder(new Order(new BigDecimal("30.00"), START));
+        now.set(START + TICK);
+
+        OrderRates current = module.getRates(now.get());
+        assertEquals(0.4, current.getOrders().getOneMinute(), 1e-9);
+        assertEquals(8.0, current.getAmount().getOneMinute(), 1e-9);
+        assertTrue(module.getRates(now.get() + 600_000L).getOrders().getFiveMinute() < 0.4);
+    }
+}
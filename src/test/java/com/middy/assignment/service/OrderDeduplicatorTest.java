@@ -0,0 +1,129 @@
+package com.middy.assignment.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.middy.assignment.service.OrderDeduplicator.Mode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderDeduplicatorTest {
+
+    private static final int STATS_PERIOD = 60000;
+    private static final long NOW = 1696500000000L;
+
+    @Test
+    @DisplayName("Should count an id once per timestamp second with exact sets")
+    void shouldDropRetriesExact() {
+        assertDropsRetries(new OrderDeduplicator(Mode.EXACT, STATS_PERIOD, 1000, 0.001));
+    }
+
+    @Test
+    @DisplayName("Should count an id once per timestamp second with Bloom filters")
+    void shouldDropRetriesBloom() {
+        assertDropsRetries(new OrderDeduplicator(Mode.BLOOM, STATS_PERIOD, 1000, 0.001));
+    }
+
+    private static void assertDropsRetries(OrderDeduplicator deduplicator) {
+        assertTrue(record(deduplicator, "a", NOW));
+        assertFalse(record(deduplicator, "a", NOW));
+        assertFalse(record(deduplicator, "a", NOW + 999));
+        assertTrue(record(deduplicator, "b", NOW));
+        assertTrue(record(deduplicator, "a", NOW + 1000));
+    }
+
+    // Lets the order through the deduplicator and records it, as a successful ingest does
+    private static boolean record(OrderDeduplicator deduplicator, String orderId, long timestamp) {
+        if (!deduplicator.firstSeen(orderId, timestamp)) {
+            return false;
+        }
+        deduplicator.recorded(orderId, timestamp);
+        return true;
+    }
+
+    @Test
+    @DisplayName("Should count the retry of an order that failed to be recorded")
+    void shouldCountRetryAfterFailure() {
+        for (Mode mode : new Mode[]{Mode.EXACT, Mode.BLOOM}) {
+            OrderDeduplicator deduplicator = new OrderDeduplicator(mode, STATS_PERIOD, 1000, 0.001);
+
+            assertTrue(deduplicator.firstSeen("a", NOW));
+            deduplicator.forget("a", NOW);
+            assertTrue(record(deduplicator, "a", NOW), mode.name());
+            assertFalse(record(deduplicator, "a", NOW), mode.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Should count concurrent copies of an order once with exact sets")
+    void shouldClaimExactIdsBeforeRecording() {
+        OrderDeduplicator deduplicator = new OrderDeduplicator(Mode.EXACT, STATS_PERIOD, 1000, 0.001);
+
+        assertTrue(deduplicator.firstSeen("a", NOW));
+        // The first copy is still being recorded
+        assertFalse(deduplicator.firstSeen("a", NOW));
+    }
+
+    @Test
+    @DisplayName("Should always count orders without an id or when disabled")
+    void shouldCountOrdersWithoutId() {
+        OrderDeduplicator exact = new OrderDeduplicator(Mode.EXACT, STATS_PERIOD, 1000, 0.001);
+        OrderDeduplicator off = new OrderDeduplicator(Mode.OFF, STATS_PERIOD, 1000, 0.001);
+
+        assertTrue(exact.firstSeen(null, NOW));
+        assertTrue(exact.firstSeen(null, NOW));
+        assertTrue(off.firstSeen("a", NOW));
+        assertTrue(off.firstSeen("a", NOW));
+    }
+
+    @Test
+    @DisplayName("Should drop a second's partition once a later second takes its slot")
+    void shouldRecyclePartitions() {
+        OrderDeduplicator deduplicator = new OrderDeduplicator(Mode.EXACT, STATS_PERIOD, 1000, 0.001);
+        // 62 partitions: NOW and NOW + 62s share a slot
+        long recycled = NOW + 62_000;
+
+        assertTrue(record(deduplicator, "a", NOW));
+        assertTrue(record(deduplicator, "a", recycled));
+        assertFalse(record(deduplicator, "a", recycled));
+        // The older second is gone; its orders are outside the window and rejected before this point anyway
+        assertTrue(record(deduplicator, "a", NOW));
+    }
+
+    @Test
+    @DisplayName("Should forget every id on clear")
+    void shouldForgetOnClear() {
+        OrderDeduplicator deduplicator = new OrderDeduplicator(Mode.EXACT, STATS_PERIOD, 1000, 0.001);
+
+        assertTrue(deduplicator.firstSeen("a", NOW));
+        deduplicator.clear();
+        assertTrue(deduplicator.firstSeen("a", NOW));
+    }
+
+    @Test
+    @DisplayName("Should keep Bloom false positives near the configured rate")
+    void shouldBoundBloomFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("order-" + i);
+        }
+        // Each probe is also inserted, so the last ones see a slightly overfull filter
+        int falsePositives = 0;
+        for (int i = 10_000; i < 11_000; i++) {
+            if (!filter.put("order-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 30, "false positives: " + falsePositives);
+        assertEquals(7, filter.hashes());
+    }
+
+    @Test
+    @DisplayName("Should reject an impossible Bloom configuration")
+    void shouldRejectBloomConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderDeduplicator(Mode.BLOOM, STATS_PERIOD, 1000, 1.0));
+    }
+}
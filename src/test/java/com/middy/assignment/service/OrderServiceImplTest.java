@@ -0,0 +1,62 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.middy.assignment.exception.OrderValidationException;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.OrderDeduplicator.Mode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+class OrderServiceImplTest {
+
+    private static final int STATS_PERIOD = 60000;
+    private static final long START = 1696500000000L;
+
+    private final AtomicLong now = new AtomicLong(START);
+    private StatisticsModule statisticsModule;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Mockito.mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        statisticsModule = new StatisticsModule(clock, STATS_PERIOD);
+        orderService = new OrderServiceImpl(statisticsModule, new OrderDeduplicator(Mode.EXACT, STATS_PERIOD, 1000, 0.001),
+                new AdmissionController(false, 1, 5000, 100, 10));
+    }
+
+    @Test
+    @DisplayName("Should count a retry once")
+    void shouldCountRetryOnce() {
+        Order order = new Order(BigDecimal.TEN, START, "a");
+
+        orderService.addOrder(order);
+        orderService.addOrder(order);
+
+        assertEquals(1, statisticsModule.getStatistics(START, STATS_PERIOD).getCount());
+    }
+
+    @Test
+    @DisplayName("Should count the retry of an order the module rejected")
+    void shouldCountRetryOfRejectedOrder() {
+        // Ahead of the module's clock, e.g. validated by a node whose clock runs ahead
+        Order order = new Order(BigDecimal.TEN, START + 5, "a");
+        assertThrows(OrderValidationException.FutureOrderException.class, () -> orderService.addOrder(order));
+
+        now.set(START + 10);
+        orderService.addOrder(order);
+        orderService.addOrder(order);
+
+        assertEquals(1, statisticsModule.getStatistics(START + 10, STATS_PERIOD).getCount());
+    }
+}
@@ -0,0 +1,178 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.middy.assignment.model.Order;
+import com.middy.assignment.model.StatisticsPoint;
+
+import static com.middy.assignment.service.StatisticsHistory.HOUR_MILLIS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class StatisticsHistoryTest {
+
+    private static final int STATS_PERIOD = 60000;
+    // 2023-10-05T10:00:00Z, aligned to the hour
+    private static final long START = 1696500000000L;
+
+    private final AtomicLong now = new AtomicLong(START);
+    private StatisticsModule statisticsModule;
+    private StatisticsHistory statisticsHistory;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Mockito.mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        statisticsModule = new StatisticsModule(clock, STATS_PERIOD);
+        statisticsHistory = new StatisticsHistory(statisticsModule, clock, 1440, 720);
+    }
+
+    private void addOrderAt(long timestamp, String amount) {
+        now.set(timestamp);
+        statisticsModule.addOrder(new Order(new BigDecimal(amount), timestamp));
+    }
+
+    @Test
+    @DisplayName("Should roll expired buckets up into minute points")
+    void shouldRollUpExpiredBucketsPerMinute() {
+        addOrderAt(START + 1_000, "10.00");
+        addOrderAt(START + 2_000, "30.00");
+        addOrderAt(START + 61_000, "5.00");
+
+        now.set(START + 3 * 60_000);
+        statisticsHistory.flushExpiredBuckets();
+
+        List<StatisticsPoint> points = statisticsHistory.getHistory(START, START + 2 * 60_000, 60_000);
+
+        assertEquals(2, points.size());
+        assertEquals(START, points.get(0).getTimestamp());
+        assertEquals(2, points.get(0).getStatistics().getCount());
+        assertEquals(new BigDecimal("40.00"), points.get(0).getStatistics().getSum());
+        assertEquals(new BigDecimal("20.00"), points.get(0).getStatistics().getAvg());
+        assertEquals(new BigDecimal("30.00"), points.get(0).getStatistics().getMax());
+        assertEquals(new BigDecimal("10.00"), points.get(0).getStatistics().getMin());
+        assertEquals(1, points.get(1).getStatistics().getCount());
+        assertEquals(new BigDecimal("5.00"), points.get(1).getStatistics().getSum());
+    }
+
+    @Test
+    @DisplayName("Should archive a bucket exactly once when it is recycled before the flush")
+    void shouldArchiveRecycledBucketOnce() {
+        addOrderAt(START + 1_000, "10.00");
+        // Same slot one buffer length (period + 1 buckets) later recycles the bucket before any flush happened
+        addOrderAt(START + 1_000 + STATS_PERIOD + 1, "20.00");
+
+        now.set(START + 5 * 60_000);
+        statisticsHistory.flushExpiredBuckets();
+        statisticsHistory.flushExpiredBuckets();
+
+        List<StatisticsPoint> points = statisticsHistory.getHistory(START, START + 2 * 60_000, 2 * 60_000);
+
+        assertEquals(1, points.size());
+        assertEquals(2, points.get(0).getStatistics().getCount());
+        assertEquals(new BigDecimal("30.00"), points.get(0).getStatistics().getSum());
+    }
+
+    @Test
+    @DisplayName("Should not include buckets still inside the live window")
+    void shouldNotIncludeLiveWindow() {
+        addOrderAt(START + 1_000, "10.00");
+
+        now.set(START + 30_000);
+        statisticsHistory.flushExpiredBuckets();
+
+        List<StatisticsPoint> points = statisticsHistory.getHistory(START, START + 60_000, 60_000);
+
+        assertEquals(1, points.size());
+        assertEquals(0, points.get(0).getStatistics().getCount());
+    }
+
+    @Test
+    @DisplayName("Should not archive orders deleted before they expired")
+    void shouldNotArchiveDeletedOrders() {
+        addOrderAt(START + 1_000, "10.00");
+        statisticsModule.deleteAllOrders();
+        addOrderAt(START + 2_000, "30.00");
+
+        now.set(START + 3 * 60_000);
+        statisticsHistory.flushExpiredBuckets();
+
+        List<StatisticsPoint> points = statisticsHistory.getHistory(START, START + 60_000, 60_000);
+
+        assertEquals(1, points.get(0).getStatistics().getCount());
+        assertEquals(new BigDecimal("30.00"), points.get(0).getStatistics().getSum());
+    }
+
+    @Test
+    @DisplayName("Should flag points holding weighted orders as estimated")
+    void shouldFlagSampledPoints() {
+        now.set(START + 1_000);
+        statisticsModule.addOrder(new Order(new BigDecimal("10.00"), START + 1_000), 4);
+        addOrderAt(START + 61_000, "5.00");
+
+        now.set(START + 3 * 60_000);
+        statisticsHistory.flushExpiredBuckets();
+
+        List<StatisticsPoint> minutes = statisticsHistory.getHistory(START, START + 2 * 60_000, 60_000);
+        List<StatisticsPoint> hour = statisticsHistory.getHistory(START, START + HOUR_MILLIS, HOUR_MILLIS);
+
+        assertTrue(minutes.get(0).getStatistics().isEstimated());
+        assertEquals(4, minutes.get(0).getStatistics().getCount());
+        assertFalse(minutes.get(1).getStatistics().isEstimated());
+        assertTrue(hour.get(0).getStatistics().isEstimated());
+    }
+
+    @Test
+    @DisplayName("Should keep history archived before a delete")
+    void shouldKeepHistoryAcrossDelete() {
+        addOrderAt(START + 1_000, "10.00");
+        now.set(START + 2 * 60_000);
+        statisticsHistory.flushExpiredBuckets();
+
+        statisticsModule.deleteAllOrders();
+        now.set(START + 3 * 60_000);
+        statisticsHistory.flushExpiredBuckets();
+
+        List<StatisticsPoint> points = statisticsHistory.getHistory(START, START + 60_000, 60_000);
+
+        assertEquals(1, points.get(0).getStatistics().getCount());
+        assertEquals(new BigDecimal("10.00"), points.get(0).getStatistics().getSum());
+    }
+
+    @Test
+    @DisplayName("Should aggregate hourly steps")
+    void shouldAggregateHourlySteps() {
+        addOrderAt(START + 1_000, "10.00");
+        addOrderAt(START + 30 * 60_000, "20.00");
+        addOrderAt(START + 90 * 60_000, "40.00");
+
+        now.set(START + 3 * 3_600_000L);
+        statisticsHistory.flushExpiredBuckets();
+
+        List<StatisticsPoint> points = statisticsHistory.getHistory(START, START + 2 * 3_600_000L, 3_600_000L);
+
+        assertEquals(2, points.size());
+        assertEquals(2, points.get(0).getStatistics().getCount());
+        assertEquals(new BigDecimal("30.00"), points.get(0).getStatistics().getSum());
+        assertEquals(1, points.get(1).getStatistics().getCount());
+        assertEquals(new BigDecimal("40.00"), points.get(1).getStatistics().getMax());
+    }
+
+    @Test
+    @DisplayName("Should reject steps that do not fit a rollup")
+    void shouldRejectUnsupportedStep() {
+        assertThrows(IllegalArgumentException.class, () -> statisticsHistory.getHistory(START, START + 60_000, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> statisticsHistory.getHistory(START, START, 60_000));
+    }
+}
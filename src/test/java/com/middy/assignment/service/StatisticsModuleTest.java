@@ -4,17 +4,36 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Clock;
 import java.time.Instant;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.mockito.Mockito;
 
+import com.middy.assignment.metrics.StatisticsMetrics;
 import com.middy.assignment.model.Order;
 import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsPoint;
 
 import static java.time.ZoneOffset.UTC;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class StatisticsModuleTest {
 
@@ -214,6 +233,53 @@ class StatisticsModuleTest {
             assertEquals(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP), stats.getMin());
             assertEquals(0, stats.getCount());
         }
+
+        @Test
+        @DisplayName("Should only count orders added after delete in reused buckets")
+        void shouldResetStaleBucketsOnNextWrite() {
+            // Given
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(100.00), currentTime));
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(300.00), currentTime - 1));
+            statisticsModule.deleteAllOrders();
+
+            // When
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(50.00), currentTime));
+            Statistics stats = statisticsModule.getStatistics(currentTime, STATS_PERIOD);
+            Statistics rangeStats = statisticsModule.getRangeStatistics(currentTime, currentTime - STATS_PERIOD + 1, currentTime + 1);
+
+            // Then
+            assertEquals(1, stats.getCount());
+            assertEquals(BigDecimal.valueOf(50.00).setScale(2, RoundingMode.HALF_UP), stats.getSum());
+            assertEquals(BigDecimal.valueOf(50.00).setScale(2, RoundingMode.HALF_UP), stats.getMax());
+            assertEquals(1, rangeStats.getCount());
+            assertEquals(BigDecimal.valueOf(50.00).setScale(2, RoundingMode.HALF_UP), rangeStats.getSum());
+        }
+
+        @Test
+        @DisplayName("Should delete an order that entered addOrder before the delete")
+        void shouldDeleteOrderRacingWithDelete() {
+            // Given a clock that runs a delete while the second order is being added
+            Clock clock = Mockito.mock(Clock.class);
+            AtomicBoolean deleteOnNextRead = new AtomicBoolean();
+            StatisticsModule module = new StatisticsModule(clock, STATS_PERIOD);
+            when(clock.millis()).thenAnswer(invocation -> {
+                if (deleteOnNextRead.getAndSet(false)) {
+                    module.deleteAllOrders();
+                }
+                return currentTime;
+            });
+
+            // When
+            module.addOrder(new Order(BigDecimal.valueOf(100.00), currentTime));
+            deleteOnNextRead.set(true);
+            module.addOrder(new Order(BigDecimal.valueOf(200.00), currentTime));
+            module.addOrder(new Order(BigDecimal.valueOf(10.00), currentTime));
+            Statistics stats = module.getStatistics(currentTime, STATS_PERIOD);
+
+            // Then
+            assertEquals(1, stats.getCount());
+            assertEquals(BigDecimal.valueOf(10.00).setScale(2, RoundingMode.HALF_UP), stats.getSum());
+        }
     }
 
     @Nested
@@ -259,6 +325,22 @@ class StatisticsModuleTest {
     @DisplayName("Edge Cases Tests")
     class EdgeCasesTests {
 
+        @Test
+        @DisplayName("Should not lose orders to a query for a later time")
+        void shouldKeepOrdersAfterLaterQuery() {
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(currentTime), UTC), STATS_PERIOD);
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), currentTime - 100));
+            statisticsModule.addOrder(new Order(new BigDecimal("20.00"), currentTime - STATS_PERIOD + 1));
+
+            assertEquals(0, statisticsModule.getStatistics(currentTime + 2 * STATS_PERIOD, STATS_PERIOD).getCount());
+            // A query one millisecond later, as a concurrent request may issue, leaves out only the oldest order
+            assertEquals(1, statisticsModule.getStatistics(currentTime + 1, STATS_PERIOD).getCount());
+
+            Statistics stats = statisticsModule.getStatistics(currentTime, STATS_PERIOD);
+            assertEquals(2, stats.getCount());
+            assertEquals(new BigDecimal("30.00"), stats.getSum());
+        }
+
         @Test
         @DisplayName("Should handle very small amounts")
         void shouldHandleVerySmallAmounts() {
@@ -385,4 +467,671 @@ class StatisticsModuleTest {
             assertEquals(3, stats.getCount());
         }
     }
+
+    @Nested
+    @DisplayName("Range Query Tests")
+    class RangeQueryTests {
+
+        @Test
+        @DisplayName("Should aggregate only orders inside the requested range")
+        void shouldAggregateSubRange() {
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(currentTime), UTC), STATS_PERIOD);
+
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(100.00), currentTime - 30000));
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(20.00), currentTime - 4000));
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(40.00), currentTime));
+
+            Statistics stats = statisticsModule.getRangeStatistics(currentTime, currentTime - 5000, currentTime + 1);
+
+            assertEquals(BigDecimal.valueOf(60.00).setScale(2, RoundingMode.HALF_UP), stats.getSum());
+            assertEquals(BigDecimal.valueOf(30.00).setScale(2, RoundingMode.HALF_UP), stats.getAvg());
+            assertEquals(BigDecimal.valueOf(40.00).setScale(2, RoundingMode.HALF_UP), stats.getMax());
+            assertEquals(BigDecimal.valueOf(20.00).setScale(2, RoundingMode.HALF_UP), stats.getMin());
+            assertEquals(2, stats.getCount());
+        }
+
+        @Test
+        @DisplayName("Should match the full scan for the whole window and random sub-ranges")
+        void shouldMatchFullScan() {
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(currentTime), UTC), STATS_PERIOD);
+            Random random = new Random(42);
+            for (int i = 0; i < 2000; i++) {
+                long timestamp = currentTime - random.nextInt(STATS_PERIOD);
+                statisticsModule.addOrder(new Order(BigDecimal.valueOf(random.nextInt(100000), 2), timestamp));
+            }
+
+            Statistics full = statisticsModule.getStatistics(currentTime, STATS_PERIOD);
+            Statistics range = statisticsModule.getRangeStatistics(currentTime, currentTime - STATS_PERIOD + 1, currentTime + 1);
+            assertEquals(full.getSum(), range.getSum());
+            assertEquals(full.getCount(), range.getCount());
+            assertEquals(full.getMin(), range.getMin());
+            assertEquals(full.getMax(), range.getMax());
+
+            for (int i = 0; i < 50; i++) {
+                long to = currentTime + 1 - random.nextInt(STATS_PERIOD / 2);
+                int length = 1 + random.nextInt(STATS_PERIOD / 2 - 1);
+                Statistics expected = statisticsModule.getStatistics(to - 1, length);
+                Statistics actual = statisticsModule.getRangeStatistics(currentTime, to - length, to);
+                assertEquals(expected.getSum(), actual.getSum());
+                assertEquals(expected.getCount(), actual.getCount());
+                assertEquals(expected.getMin(), actual.getMin());
+                assertEquals(expected.getMax(), actual.getMax());
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject ranges outside the window")
+        void shouldRejectRangesOutsideWindow() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> statisticsModule.getRangeStatistics(currentTime, currentTime - STATS_PERIOD, currentTime));
+            assertThrows(IllegalArgumentException.class,
+                    () -> statisticsModule.getRangeStatistics(currentTime, currentTime - 1000, currentTime + 2));
+            assertThrows(IllegalArgumentException.class,
+                    () -> statisticsModule.getRangeStatistics(currentTime, currentTime - 1000, currentTime - 1000));
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics Tests")
+    class MetricsTests {
+
+        @Test
+        @DisplayName("Should count ingest outcomes, recycled buckets and occupancy")
+        void shouldRecordEngineMetrics() {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(currentTime), UTC), STATS_PERIOD,
+                    new StatisticsMetrics(registry, 1));
+
+            statisticsModule.addOrder(new Order(BigDecimal.TEN, currentTime - STATS_PERIOD + 1));
+            statisticsModule.addOrder(new Order(BigDecimal.TEN, currentTime));
+            assertThrows(Exception.class, () -> statisticsModule.addOrder(new Order(BigDecimal.TEN, currentTime - STATS_PERIOD)));
+            assertThrows(Exception.class, () -> statisticsModule.addOrder(new Order(BigDecimal.TEN, currentTime + 1)));
+            statisticsModule.getStatistics(currentTime, STATS_PERIOD);
+
+            assertEquals(2, registry.get("statistics.orders.ingested").tag("outcome", "accepted").counter().count());
+            assertEquals(1, registry.get("statistics.orders.ingested").tag("outcome", "old").counter().count());
+            assertEquals(1, registry.get("statistics.orders.ingested").tag("outcome", "future").counter().count());
+            // currentTime and currentTime - STATS_PERIOD + 1 map to different slots, nothing was recycled
+            assertEquals(0, registry.get("statistics.buckets.recycled").counter().count());
+            assertEquals(2, registry.get("statistics.bucket.lock.wait").timer().count());
+            assertEquals(1, registry.get("statistics.scan").timer().count());
+            assertEquals(2.0 / STATS_PERIOD, registry.get("statistics.window.occupancy").gauge().value(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Should keep reporting rate gauges after a garbage collection")
+        void shouldKeepRateGaugesAfterGc() {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(currentTime), UTC), STATS_PERIOD,
+                    new StatisticsMetrics(registry, 0));
+            statisticsModule.addOrder(new Order(BigDecimal.TEN, currentTime));
+
+            System.gc();
+
+            for (String window : List.of("1m", "5m", "15m")) {
+                assertFalse(Double.isNaN(registry.get("statistics.orders.rate").tag("window", window).gauge().value()));
+                assertFalse(Double.isNaN(registry.get("statistics.amount.rate").tag("window", window).gauge().value()));
+            }
+        }
+
+        @Test
+        @DisplayName("Should count a bucket reused across periods as recycled")
+        void shouldCountRecycledBucket() {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            AtomicLong now = new AtomicLong(currentTime);
+            Clock clock = Mockito.mock(Clock.class);
+            when(clock.millis()).thenAnswer(invocation -> now.get());
+            statisticsModule = new StatisticsModule(clock, STATS_PERIOD, new StatisticsMetrics(registry, 0));
+
+            // The buffer has STATS_PERIOD + 1 one-millisecond buckets, so this timestamp maps to the same slot
+            long reusingTime = currentTime + STATS_PERIOD + 1;
+            statisticsModule.addOrder(new Order(BigDecimal.TEN, currentTime));
+            now.set(reusingTime);
+            statisticsModule.addOrder(new Order(BigDecimal.ONE, reusingTime));
+
+            assertEquals(1, registry.get("statistics.buckets.recycled").counter().count());
+            assertEquals(0, registry.get("statistics.bucket.lock.wait").timer().count());
+            assertEquals(1, statisticsModule.getStatistics(reusingTime, STATS_PERIOD).getCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Bucket Resolution Tests")
+    class BucketResolutionTests {
+
+        // 2023-10-05T10:30:00.250Z, deliberately not aligned to a second
+        private static final long NOW = 1696501800250L;
+
+        private StatisticsModule module(int resolution, boolean exact) {
+            return new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(NOW), UTC), STATS_PERIOD, resolution, exact,
+                    StatisticsMetrics.disabled());
+        }
+
+        @Test
+        @DisplayName("Should leave out the partially expired oldest bucket with coarse buckets")
+        void shouldExcludePartialOldestBucket() {
+            StatisticsModule coarse = module(1000, false);
+
+            // Bucket [NOW - 60250, NOW - 59250) starts before the window and is left out entirely
+            coarse.addOrder(new Order(BigDecimal.valueOf(500.00), NOW - STATS_PERIOD + 100));
+            coarse.addOrder(new Order(BigDecimal.valueOf(100.00), NOW - 30000));
+            coarse.addOrder(new Order(BigDecimal.valueOf(200.00), NOW));
+
+            Statistics stats = coarse.getStatistics(NOW, STATS_PERIOD);
+
+            assertEquals(BigDecimal.valueOf(300.00).setScale(2, RoundingMode.HALF_UP), stats.getSum());
+            assertEquals(2, stats.getCount());
+        }
+
+        @Test
+        @DisplayName("Should match millisecond buckets when exact boundaries are enabled")
+        void shouldMatchMillisecondBucketsWithExactBoundaries() {
+            StatisticsModule reference = module(1, false);
+            StatisticsModule exact = module(100, true);
+            Random random = new Random(7);
+            for (int i = 0; i < 3000; i++) {
+                Order order = new Order(BigDecimal.valueOf(random.nextInt(100000), 2), NOW - random.nextInt(STATS_PERIOD));
+                reference.addOrder(order);
+                exact.addOrder(order);
+            }
+
+            assertStatisticsEqual(reference.getStatistics(NOW, STATS_PERIOD), exact.getStatistics(NOW, STATS_PERIOD));
+            for (int i = 0; i < 50; i++) {
+                long to = NOW + 1 - random.nextInt(STATS_PERIOD / 2);
+                long from = to - 1 - random.nextInt(STATS_PERIOD / 2 - 1);
+                assertStatisticsEqual(reference.getRangeStatistics(NOW, from, to), exact.getRangeStatistics(NOW, from, to));
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject a resolution that does not divide the period")
+        void shouldRejectInvalidResolution() {
+            assertThrows(IllegalArgumentException.class, () -> module(7, false));
+            assertThrows(IllegalArgumentException.class, () -> module(0, false));
+        }
+    }
+
+    @Nested
+    @DisplayName("Sharding Tests")
+    class ShardingTests {
+
+        // 2023-10-05T10:30:00Z
+        private static final long NOW = 1696501800000L;
+
+        private StatisticsModule module(int resolution, boolean exact, int shards) {
+            return new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(NOW), UTC), STATS_PERIOD, resolution, exact,
+                    shards, StatisticsMetrics.disabled());
+        }
+
+        @Test
+        @DisplayName("Should merge all shards on read to the same result as a single store")
+        void shouldMergeShardsOnRead() throws InterruptedException {
+            StatisticsModule reference = module(1, false, 1);
+            StatisticsModule sharded = module(1, false, 4);
+            StatisticsModule shardedExact = module(100, true, 3);
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                Random random = new Random(t);
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        Order order = new Order(BigDecimal.valueOf(random.nextInt(100000), 2), NOW - random.nextInt(STATS_PERIOD));
+                        reference.addOrder(order);
+                        sharded.addOrder(order);
+                        shardedExact.addOrder(order);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            Statistics expected = reference.getStatistics(NOW, STATS_PERIOD);
+            assertEquals(4000, expected.getCount());
+            assertStatisticsEqual(expected, sharded.getStatistics(NOW, STATS_PERIOD));
+            assertStatisticsEqual(expected, shardedExact.getStatistics(NOW, STATS_PERIOD));
+            Random random = new Random(42);
+            for (int i = 0; i < 50; i++) {
+                long to = NOW + 1 - random.nextInt(STATS_PERIOD / 2);
+                long from = to - 1 - random.nextInt(STATS_PERIOD / 2 - 1);
+                Statistics expectedRange = reference.getRangeStatistics(NOW, from, to);
+                assertStatisticsEqual(expectedRange, sharded.getRangeStatistics(NOW, from, to));
+                assertStatisticsEqual(expectedRange, shardedExact.getRangeStatistics(NOW, from, to));
+            }
+        }
+
+        @Test
+        @DisplayName("Should delete orders from every shard")
+        void shouldDeleteFromEveryShard() throws InterruptedException {
+            StatisticsModule sharded = module(1, false, 4);
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> sharded.addOrder(new Order(BigDecimal.TEN, NOW)));
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(4, sharded.getStatistics(NOW, STATS_PERIOD).getCount());
+
+            sharded.deleteAllOrders();
+
+            assertEquals(0, sharded.getStatistics(NOW, STATS_PERIOD).getCount());
+        }
+
+        @Test
+        @DisplayName("Should reject a negative number of shards")
+        void shouldRejectNegativeShards() {
+            assertThrows(IllegalArgumentException.class, () -> module(1, false, -1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Parallel Scan Tests")
+    class ParallelScanTests {
+
+        // 2023-10-05T10:30:00Z
+        private static final long NOW = 1696501800000L;
+        // Ten minutes, so one store spans several scan chunks
+        private static final int LONG_PERIOD = 600_000;
+
+        private StatisticsModule module(boolean exact, int shards, int parallelScanThreshold) {
+            return new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(NOW), UTC), LONG_PERIOD, exact ? 10 : 1, exact,
+                    shards, parallelScanThreshold, 2, StatisticsMetrics.disabled());
+        }
+
+        @Test
+        @DisplayName("Should produce the same statistics as the sequential scan")
+        void shouldMatchSequentialScan() {
+            StatisticsModule sequential = module(false, 1, 0);
+            StatisticsModule parallel = module(false, 1, 1);
+            StatisticsModule parallelSharded = module(false, 3, 1);
+            StatisticsModule parallelExact = module(true, 1, 1);
+            Random random = new Random(11);
+            for (int i = 0; i < 20000; i++) {
+                Order order = new Order(BigDecimal.valueOf(random.nextInt(100000), 2), NOW - random.nextInt(LONG_PERIOD));
+                sequential.addOrder(order);
+                parallel.addOrder(order);
+                parallelSharded.addOrder(order);
+                parallelExact.addOrder(order);
+            }
+
+            for (int period : new int[]{LONG_PERIOD, LONG_PERIOD / 3, 1}) {
+                Statistics expected = sequential.getStatistics(NOW, period);
+                assertStatisticsEqual(expected, parallel.getStatistics(NOW, period));
+                assertStatisticsEqual(expected, parallelSharded.getStatistics(NOW, period));
+                assertStatisticsEqual(expected, parallelExact.getStatistics(NOW, period));
+            }
+            parallel.shutdown();
+            parallelSharded.shutdown();
+            parallelExact.shutdown();
+        }
+
+        @Test
+        @DisplayName("Should return zero statistics for an empty window")
+        void shouldReturnZeroForEmptyWindow() {
+            StatisticsModule parallel = module(false, 1, 1);
+
+            Statistics stats = parallel.getStatistics(NOW, LONG_PERIOD);
+
+            assertEquals(0, stats.getCount());
+            assertEquals(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP), stats.getMax());
+            assertEquals(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP), stats.getMin());
+            parallel.shutdown();
+        }
+    }
+
+    @Nested
+    @DisplayName("Query Coalescing Tests")
+    class QueryCoalescingTests {
+
+        @Test
+        @DisplayName("Should share one scan between concurrent queries for the same time and period")
+        void shouldCoalesceIdenticalQueries() throws Exception {
+            int followers = 3;
+            CountDownLatch leaderScanning = new CountDownLatch(1);
+            CountDownLatch followersWaiting = new CountDownLatch(followers);
+            Timer scanTimer = new SimpleMeterRegistry().timer("scan");
+            StatisticsMetrics metrics = Mockito.mock(StatisticsMetrics.class);
+            // The leader's scan finishes only after every follower has joined it
+            when(metrics.scanTimer()).thenAnswer(invocation -> {
+                leaderScanning.countDown();
+                followersWaiting.await();
+                return scanTimer;
+            });
+            doAnswer(invocation -> {
+                followersWaiting.countDown();
+                return null;
+            }).when(metrics).queryCoalesced();
+            StatisticsModule module = new StatisticsModule(Clock.systemDefaultZone(), STATS_PERIOD, metrics);
+            module.addOrder(new Order(BigDecimal.valueOf(10.00), currentTime));
+
+            ExecutorService executor = Executors.newFixedThreadPool(followers + 1);
+            try {
+                Future<Statistics> leader = executor.submit(() -> module.getStatistics(currentTime, STATS_PERIOD));
+                assertTrue(leaderScanning.await(5, TimeUnit.SECONDS));
+                List<Future<Statistics>> results = new ArrayList<>();
+                for (int i = 0; i < followers; i++) {
+                    results.add(executor.submit(() -> module.getStatistics(currentTime, STATS_PERIOD)));
+                }
+
+                Statistics expected = leader.get(5, TimeUnit.SECONDS);
+                assertEquals(1, expected.getCount());
+                for (Future<Statistics> result : results) {
+                    assertSame(expected, result.get(5, TimeUnit.SECONDS));
+                }
+                verify(metrics, times(1)).scanTimer();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Should scan again for a different time or after a delete")
+        void shouldNotCoalesceDifferentQueries() {
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(10.00), currentTime));
+
+            assertEquals(1, statisticsModule.getStatistics(currentTime, STATS_PERIOD).getCount());
+            assertEquals(0, statisticsModule.getStatistics(currentTime - 1, STATS_PERIOD).getCount());
+            statisticsModule.deleteAllOrders();
+            assertEquals(0, statisticsModule.getStatistics(currentTime, STATS_PERIOD).getCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Window Version Tests")
+    class WindowVersionTests {
+
+        @Test
+        @DisplayName("Should change the version on add and delete only")
+        void shouldChangeOnAddAndDelete() {
+            long initial = statisticsModule.getWindowVersion(currentTime);
+            assertEquals(initial, statisticsModule.getWindowVersion(currentTime));
+
+            statisticsModule.addOrder(new Order(BigDecimal.valueOf(10.00), currentTime));
+            long afterAdd = statisticsModule.getWindowVersion(currentTime);
+            assertTrue(afterAdd > initial);
+            assertEquals(afterAdd, statisticsModule.getWindowVersion(currentTime + 1000));
+
+            statisticsModule.deleteAllOrders();
+            assertTrue(statisticsModule.getWindowVersion(currentTime + 1000) > afterAdd);
+        }
+
+        @Test
+        @DisplayName("Should change the version once an order leaves the window")
+        void shouldChangeOnExpiry() {
+            AtomicLong now = new AtomicLong(currentTime);
+            Clock clock = Mockito.mock(Clock.class);
+            when(clock.millis()).thenAnswer(invocation -> now.get());
+            StatisticsModule module = new StatisticsModule(clock, STATS_PERIOD);
+            module.addOrder(new Order(BigDecimal.valueOf(10.00), currentTime - 1000));
+            module.addOrder(new Order(BigDecimal.valueOf(20.00), currentTime));
+            long version = module.getWindowVersion(currentTime);
+
+            // Still both in the window
+            assertEquals(version, module.getWindowVersion(currentTime - 1000 + STATS_PERIOD - 1));
+            // The older order leaves the window
+            long firstExpiry = module.getWindowVersion(currentTime - 1000 + STATS_PERIOD);
+            assertTrue(firstExpiry > version);
+            assertEquals(1, module.getStatistics(currentTime - 1000 + STATS_PERIOD, STATS_PERIOD).getCount());
+            assertEquals(firstExpiry, module.getWindowVersion(currentTime + STATS_PERIOD - 1));
+            // The newer order leaves the window, after which nothing changes any more
+            long secondExpiry = module.getWindowVersion(currentTime + STATS_PERIOD);
+            assertTrue(secondExpiry > firstExpiry);
+            assertEquals(secondExpiry, module.getWindowVersion(currentTime + 10L * STATS_PERIOD));
+        }
+
+        @Test
+        @DisplayName("Should change the version when an order leaves a partially expired bucket in exact mode")
+        void shouldChangeOnExactEdgeExpiry() {
+            long bucketStart = currentTime - currentTime % 1000;
+            StatisticsModule module = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(bucketStart + 500), UTC),
+                    STATS_PERIOD, 1000, true, StatisticsMetrics.disabled());
+            module.addOrder(new Order(BigDecimal.valueOf(10.00), bucketStart + 100));
+            module.addOrder(new Order(BigDecimal.valueOf(20.00), bucketStart + 400));
+            long version = module.getWindowVersion(bucketStart + 500);
+
+            long firstExpiry = module.getWindowVersion(bucketStart + 100 + STATS_PERIOD);
+            assertTrue(firstExpiry > version);
+            assertEquals(1, module.getStatistics(bucketStart + 100 + STATS_PERIOD, STATS_PERIOD).getCount());
+            assertTrue(module.getWindowVersion(bucketStart + 400 + STATS_PERIOD) > firstExpiry);
+            assertEquals(0, module.getStatistics(bucketStart + 400 + STATS_PERIOD, STATS_PERIOD).getCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Variance Tests")
+    class VarianceTests {
+
+        @Test
+        @DisplayName("Should report the population variance and standard deviation across buckets")
+        void shouldReportVarianceAcrossBuckets() {
+            for (int i = 1; i <= 4; i++) {
+                statisticsModule.addOrder(new Order(BigDecimal.valueOf(10L * i), currentTime - i));
+            }
+
+            Statistics stats = statisticsModule.getStatistics(currentTime, STATS_PERIOD);
+
+            assertEquals(new BigDecimal("125.00"), stats.getVariance());
+            assertEquals(new BigDecimal("11.18"), stats.getStddev());
+        }
+
+        @Test
+        @DisplayName("Should merge moments of one bucket, sharded stores and the parallel scan alike")
+        void shouldMergeMomentsLikeSingleBucket() throws Exception {
+            StatisticsModule sharded = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(currentTime), UTC),
+                    STATS_PERIOD, 1, false, 4, 1, 2, StatisticsMetrics.disabled());
+            StatisticsModule single = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(currentTime), UTC), STATS_PERIOD);
+            Random random = new Random(7);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> writes = new ArrayList<>();
+                for (int i = 0; i < 2000; i++) {
+                    Order order = new Order(BigDecimal.valueOf(random.nextInt(1_000_000), 2), currentTime - random.nextInt(50));
+                    writes.add(executor.submit(() -> sharded.addOrder(order)));
+                    single.addOrder(new Order(order.getAmount(), currentTime));
+                }
+                for (Future<?> write : writes) {
+                    write.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            Statistics expected = single.getStatistics(currentTime, STATS_PERIOD);
+            Statistics actual = sharded.getStatistics(currentTime, STATS_PERIOD);
+
+            assertEquals(expected.getVariance(), actual.getVariance());
+            assertEquals(expected.getStddev(), actual.getStddev());
+            sharded.shutdown();
+        }
+
+        @Test
+        @DisplayName("Should stay accurate for amounts with a large common offset")
+        void shouldStayStableForLargeAmounts() {
+            String[] amounts = {"1000000004.00", "1000000007.00", "1000000013.00", "1000000016.00"};
+            for (int i = 0; i < amounts.length; i++) {
+                statisticsModule.addOrder(new Order(new BigDecimal(amounts[i]), currentTime - i));
+            }
+
+            Statistics stats = statisticsModule.getStatistics(currentTime, STATS_PERIOD);
+
+            assertEquals(new BigDecimal("22.50"), stats.getVariance());
+            assertEquals(new BigDecimal("4.74"), stats.getStddev());
+        }
+
+        @Test
+        @DisplayName("Should report the variance of sub-ranges from the range index")
+        void shouldReportRangeVariance() {
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), currentTime - 100));
+            statisticsModule.addOrder(new Order(new BigDecimal("20.00"), currentTime - 50));
+            statisticsModule.addOrder(new Order(new BigDecimal("90.00"), currentTime - 10));
+
+            Statistics range = statisticsModule.getRangeStatistics(currentTime, currentTime - 100, currentTime - 20);
+
+            assertEquals(new BigDecimal("25.00"), range.getVariance());
+            assertEquals(new BigDecimal("5.00"), range.getStddev());
+        }
+
+        @Test
+        @DisplayName("Should report no variance, but exact other values, for amounts beyond double precision")
+        void shouldOmitVarianceOfHugeAmounts() {
+            statisticsModule.addOrder(new Order(new BigDecimal("1e400"), currentTime - 100));
+            statisticsModule.addOrder(new Order(new BigDecimal("1e200"), currentTime - 50));
+            statisticsModule.addOrder(new Order(new BigDecimal("-1e200"), currentTime - 50));
+
+            Statistics stats = statisticsModule.getStatistics(currentTime, STATS_PERIOD);
+            Statistics pair = statisticsModule.getRangeStatistics(currentTime, currentTime - 50, currentTime - 49);
+
+            assertEquals(3, stats.getCount());
+            assertEquals(new BigDecimal("1e400").setScale(2), stats.getSum());
+            assertNull(stats.getVariance());
+            assertNull(stats.getStddev());
+            assertEquals(2, pair.getCount());
+            assertNull(pair.getVariance());
+            assertEquals(3, statisticsModule.getSeries(currentTime, 1_000).stream()
+                    .mapToLong(point -> point.getStatistics().getCount()).sum());
+        }
+    }
+
+    @Nested
+    @DisplayName("Series Tests")
+    class SeriesTests {
+
+        // 2023-10-05T10:30:00.400Z
+        private final long now = 1696501800400L;
+
+        @Test
+        @DisplayName("Should split the window into epoch-aligned steps that add up to the window statistics")
+        void shouldSplitWindowIntoSteps() {
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(now), UTC), STATS_PERIOD);
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - STATS_PERIOD + 1));
+            statisticsModule.addOrder(new Order(new BigDecimal("20.00"), now - 1_500));
+            statisticsModule.addOrder(new Order(new BigDecimal("30.00"), now - 1_450));
+            statisticsModule.addOrder(new Order(new BigDecimal("40.00"), now));
+
+            List<StatisticsPoint> series = statisticsModule.getSeries(now, 1_000);
+
+            assertEquals(61, series.size());
+            assertEquals(now - 400 - STATS_PERIOD, series.get(0).getTimestamp());
+            assertEquals(now - 400, series.get(60).getTimestamp());
+            assertEquals(1, series.get(0).getStatistics().getCount());
+            assertEquals(new BigDecimal("50.00"), series.get(58).getStatistics().getSum());
+            assertEquals(2, series.get(58).getStatistics().getCount());
+            assertEquals(new BigDecimal("40.00"), series.get(60).getStatistics().getSum());
+            assertEquals(statisticsModule.getStatistics(now, STATS_PERIOD).getCount(),
+                    series.stream().mapToLong(point -> point.getStatistics().getCount()).sum());
+        }
+
+        @Test
+        @DisplayName("Should place exact edge buckets in their steps")
+        void shouldPlaceExactEdges() {
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(now), UTC), STATS_PERIOD, 100, true,
+                    StatisticsMetrics.disabled());
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - STATS_PERIOD + 1));
+            statisticsModule.addOrder(new Order(new BigDecimal("20.00"), now - 700));
+            statisticsModule.addOrder(new Order(new BigDecimal("30.00"), now));
+
+            List<StatisticsPoint> series = statisticsModule.getSeries(now, 1_000);
+
+            assertEquals(new BigDecimal("10.00"), series.get(0).getStatistics().getSum());
+            assertEquals(new BigDecimal("20.00"), series.get(59).getStatistics().getSum());
+            assertEquals(new BigDecimal("30.00"), series.get(60).getStatistics().getSum());
+        }
+
+        @Test
+        @DisplayName("Should reject steps that are not whole buckets within the period")
+        void shouldRejectInvalidSteps() {
+            StatisticsModule module = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(now), UTC), STATS_PERIOD, 100,
+                    false, StatisticsMetrics.disabled());
+
+            assertThrows(IllegalArgumentException.class, () -> module.getSeries(now, 150));
+            assertThrows(IllegalArgumentException.class, () -> module.getSeries(now, 0));
+            assertThrows(IllegalArgumentException.class, () -> module.getSeries(now, 2 * STATS_PERIOD));
+        }
+    }
+
+    @Nested
+    @DisplayName("Weighted Order Tests")
+    class WeightedOrderTests {
+
+        // 2023-10-05T10:30:00.400Z
+        private final long now = 1696501800400L;
+
+        @BeforeEach
+        void setUp() {
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(now), UTC), STATS_PERIOD);
+        }
+
+        @Test
+        @DisplayName("Should scale count and sum by the weight and flag the result as estimated")
+        void shouldEstimateFromWeightedOrders() {
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - 100), 4);
+            statisticsModule.addOrder(new Order(new BigDecimal("30.00"), now - 50));
+
+            Statistics stats = statisticsModule.getStatistics(now, STATS_PERIOD);
+
+            assertEquals(5, stats.getCount());
+            assertEquals(new BigDecimal("70.00"), stats.getSum());
+            assertEquals(new BigDecimal("14.00"), stats.getAvg());
+            assertEquals(new BigDecimal("10.00"), stats.getMin());
+            assertEquals(new BigDecimal("30.00"), stats.getMax());
+            assertEquals(new BigDecimal("64.00"), stats.getVariance());
+            assertTrue(stats.isEstimated());
+            assertTrue(statisticsModule.getRangeStatistics(now, now - 100, now - 99).isEstimated());
+            assertFalse(statisticsModule.getRangeStatistics(now, now - 50, now + 1).isEstimated());
+        }
+
+        @Test
+        @DisplayName("Should return to exact results once weighted orders leave the window or are deleted")
+        void shouldClearEstimateFlag() {
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - 100), 8);
+            statisticsModule.addOrder(new Order(new BigDecimal("30.00"), now));
+
+            assertTrue(statisticsModule.getStatistics(now, STATS_PERIOD).isEstimated());
+            Statistics later = statisticsModule.getStatistics(now + STATS_PERIOD - 100, STATS_PERIOD);
+            assertFalse(later.isEstimated());
+            assertEquals(1, later.getCount());
+
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - 100), 8);
+            statisticsModule.deleteAllOrders();
+            statisticsModule.addOrder(new Order(new BigDecimal("30.00"), now));
+            assertFalse(statisticsModule.getStatistics(now, STATS_PERIOD).isEstimated());
+        }
+
+        @Test
+        @DisplayName("Should flag only the series points holding weighted orders")
+        void shouldFlagSeriesPoints() {
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - 1_500), 2);
+            statisticsModule.addOrder(new Order(new BigDecimal("30.00"), now));
+
+            List<StatisticsPoint> series = statisticsModule.getSeries(now, 1_000);
+
+            assertTrue(series.get(58).getStatistics().isEstimated());
+            assertEquals(2, series.get(58).getStatistics().getCount());
+            assertFalse(series.get(60).getStatistics().isEstimated());
+        }
+
+        @Test
+        @DisplayName("Should not flag the result for weighted orders in the bucket straddling the window start")
+        void shouldIgnoreWeightedOrdersOutsideScannedBuckets() {
+            statisticsModule = new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(now), UTC), STATS_PERIOD, 1000, false,
+                    StatisticsMetrics.disabled());
+            // Inside the window, but in the bucket starting 400 ms before it, which the scan leaves out
+            statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - STATS_PERIOD + 200), 4);
+            statisticsModule.addOrder(new Order(new BigDecimal("30.00"), now));
+
+            Statistics stats = statisticsModule.getStatistics(now, STATS_PERIOD);
+
+            assertEquals(1, stats.getCount());
+            assertFalse(stats.isEstimated());
+        }
+    }
+
+    private static void assertStatisticsEqual(Statistics expected, Statistics actual) {
+        assertEquals(expected.getSum(), actual.getSum());
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+    }
 }
@@ -0,0 +1,91 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.middy.assignment.model.Order;
+import com.middy.assignment.model.StatisticsPoint;
+import com.middy.assignment.model.StatisticsSnapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatisticsServiceImplTest {
+
+    private static final int STATS_PERIOD = 60000;
+
+    private StatisticsModule statisticsModule;
+    private StatisticsServiceImpl statisticsService;
+    private long currentTime;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.systemDefaultZone();
+        statisticsModule = new StatisticsModule(clock, STATS_PERIOD);
+        statisticsService = new StatisticsServiceImpl(statisticsModule, new StatisticsHistory(statisticsModule, clock, 1440, 720),
+                Jackson2ObjectMapperBuilder.json().build());
+        currentTime = System.currentTimeMillis();
+    }
+
+    @Test
+    @DisplayName("Should reuse the snapshot and its JSON until the window version changes")
+    void shouldReuseSnapshotWhileVersionUnchanged() {
+        statisticsModule.addOrder(new Order(new BigDecimal("10.00"), currentTime));
+
+        StatisticsSnapshot first = statisticsService.getStatisticsSnapshot(currentTime, STATS_PERIOD);
+        assertEquals("{\"sum\":\"10.00\",\"avg\":\"10.00\",\"max\":\"10.00\",\"min\":\"10.00\",\"count\":1,\"variance\":\"0.00\",\"stddev\":\"0.00\"}",
+                new String(first.getJson(), StandardCharsets.UTF_8));
+        assertSame(first, statisticsService.getStatisticsSnapshot(currentTime + 1, STATS_PERIOD));
+
+        statisticsModule.addOrder(new Order(new BigDecimal("30.00"), currentTime));
+        StatisticsSnapshot second = statisticsService.getStatisticsSnapshot(currentTime + 1, STATS_PERIOD);
+        assertNotSame(first, second);
+        assertEquals(2, second.getStatistics().getCount());
+        assertNotSame(second, statisticsService.getStatisticsSnapshot(currentTime + 1, STATS_PERIOD / 2));
+    }
+
+    @Test
+    @DisplayName("Should encode snapshots with the injected mapper and its settings")
+    void shouldEncodeWithInjectedMapper() {
+        ObjectMapper nonNull = Jackson2ObjectMapperBuilder.json().serializationInclusion(JsonInclude.Include.NON_NULL).build();
+        StatisticsServiceImpl service = new StatisticsServiceImpl(statisticsModule,
+                new StatisticsHistory(statisticsModule, Clock.systemDefaultZone(), 1, 1), nonNull);
+        // Too large for the variance, which is then null and left out
+        statisticsModule.addOrder(new Order(new BigDecimal("1e400"), currentTime));
+
+        StatisticsSnapshot snapshot = service.getStatisticsSnapshot(currentTime, STATS_PERIOD);
+
+        String json = new String(snapshot.getJson(), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"count\":1"), json);
+        assertFalse(json.contains("variance"), json);
+    }
+
+    @Test
+    @DisplayName("Should reuse the series of a step while the version and its points are unchanged")
+    void shouldReuseSeriesWhileVersionUnchanged() {
+        long now = currentTime - Math.floorMod(currentTime, 1000) + 500;
+        statisticsModule.addOrder(new Order(new BigDecimal("10.00"), now - 1000));
+
+        List<StatisticsPoint> first = statisticsService.getSeries(now, 1000);
+        assertSame(first, statisticsService.getSeries(now + 1, 1000));
+        assertNotSame(first, statisticsService.getSeries(now, 5000));
+        // The next second adds a point
+        assertNotSame(first, statisticsService.getSeries(now + 500, 1000));
+
+        statisticsModule.addOrder(new Order(new BigDecimal("20.00"), now - 1000));
+        List<StatisticsPoint> changed = statisticsService.getSeries(now + 500, 1000);
+        assertEquals(2, changed.stream().mapToLong(point -> point.getStatistics().getCount()).sum());
+    }
+}
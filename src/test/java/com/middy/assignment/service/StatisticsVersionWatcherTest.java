@@ -0,0 +1,112 @@
+package com.middy.assignment.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.middy.assignment.model.Order;
+import com.middy.assignment.model.Statistics;
+import com.middy.assignment.model.StatisticsSnapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatisticsVersionWatcherTest {
+
+    private static final long START = 1696800000000L;
+
+    private final AtomicLong now = new AtomicLong(START);
+    private StatisticsService statisticsService;
+    private StatisticsVersionWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Mockito.mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        statisticsService = Mockito.mock(StatisticsService.class);
+        watcher = new StatisticsVersionWatcher(statisticsService, clock, 60000);
+    }
+
+    @Test
+    @DisplayName("Should release every waiter with one snapshot once the version changes")
+    void shouldReleaseWaitersOnChange() {
+        Statistics statistics = new Statistics(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L);
+        StatisticsSnapshot changed = new StatisticsSnapshot(8L, statistics, new byte[0]);
+        when(statisticsService.getWindowVersion(anyLong())).thenReturn(7L, 8L);
+        when(statisticsService.getStatisticsSnapshot(anyLong(), anyInt())).thenReturn(changed);
+        CompletableFuture<Optional<StatisticsSnapshot>> first = watcher.awaitChange(7L, 1000);
+        CompletableFuture<Optional<StatisticsSnapshot>> second = watcher.awaitChange(7L, 1000);
+
+        watcher.releaseWaiters();
+        assertFalse(first.isDone());
+        verify(statisticsService, never()).getStatisticsSnapshot(anyLong(), anyInt());
+
+        watcher.releaseWaiters();
+        assertSame(changed, first.join().orElseThrow());
+        assertSame(changed, second.join().orElseThrow());
+        verify(statisticsService, times(1)).getStatisticsSnapshot(START, 60000);
+    }
+
+    @Test
+    @DisplayName("Should release waiters when an order leaves a window other than 60 s")
+    void shouldReleaseWaitersOnExpiryOfShortWindow() {
+        Clock clock = Mockito.mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        StatisticsModule module = new StatisticsModule(clock, 5000);
+        StatisticsService service = new StatisticsServiceImpl(module, new StatisticsHistory(module, clock, 1, 1),
+                new ObjectMapper());
+        StatisticsVersionWatcher shortWindow = new StatisticsVersionWatcher(service, clock, 5000);
+        module.addOrder(new Order(BigDecimal.TEN, START));
+        CompletableFuture<Optional<StatisticsSnapshot>> waiter = shortWindow.awaitChange(service.getWindowVersion(START), 60_000);
+
+        now.set(START + 4999);
+        shortWindow.releaseWaiters();
+        assertFalse(waiter.isDone());
+
+        now.set(START + 5000);
+        shortWindow.releaseWaiters();
+        assertEquals(0, waiter.join().orElseThrow().getStatistics().getCount());
+    }
+
+    @Test
+    @DisplayName("Should complete a waiter empty once its wait runs out")
+    void shouldTimeOutUnchangedWaiter() {
+        when(statisticsService.getWindowVersion(anyLong())).thenReturn(7L);
+        CompletableFuture<Optional<StatisticsSnapshot>> waiter = watcher.awaitChange(7L, 1000);
+
+        now.set(START + 999);
+        watcher.releaseWaiters();
+        assertFalse(waiter.isDone());
+
+        now.set(START + 1000);
+        watcher.releaseWaiters();
+        assertTrue(waiter.join().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not read the version while nobody waits or after a waiter was cancelled")
+    void shouldSkipWithoutWaiters() {
+        watcher.releaseWaiters();
+        watcher.awaitChange(7L, 1000).cancel(false);
+        watcher.releaseWaiters();
+        watcher.releaseWaiters();
+
+        verify(statisticsService, times(1)).getWindowVersion(anyLong());
+    }
+}
@@ -0,0 +1,62 @@
+package com.middy.assignment.service;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class WindowMaskTest {
+
+    private static final int SLOTS = 1021;
+
+    @Test
+    @DisplayName("Should use the vector kernel only when built and run with the incubator module")
+    void shouldPickKernel() {
+        // surefire starts the test JVM with --add-modules jdk.incubator.vector under the vector profile only
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            assertEquals(WindowMask.VECTOR_WINDOW_MASK, WindowMask.create().getClass().getName());
+        } else {
+            assertInstanceOf(ScalarWindowMask.class, WindowMask.create());
+        }
+    }
+
+    @Test
+    @DisplayName("Should select the same slots with the vector and the scalar kernel")
+    void shouldMatchScalarKernel() {
+        WindowMask mask = WindowMask.create();
+        // Only meaningful under the vector profile (mvn -Pvector test); otherwise it would compare the scalar kernel with itself
+        assumeTrue(mask.getClass().getName().equals(WindowMask.VECTOR_WINDOW_MASK), "Vector kernel not loaded");
+        Random random = new Random(3);
+        long[] tags = new long[SLOTS];
+        long[] generations = new long[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            tags[i] = random.nextInt(2000);
+            generations[i] = random.nextInt(3);
+        }
+
+        for (int run = 0; run < 100; run++) {
+            int fromIndex = random.nextInt(SLOTS);
+            int toIndex = fromIndex + random.nextInt(SLOTS - fromIndex + 1);
+            long firstBucket = random.nextInt(2000);
+            long lastBucket = firstBucket + random.nextInt(1000);
+            long generation = random.nextInt(3);
+
+            assertArrayEquals(
+                    select(new ScalarWindowMask(), tags, generations, fromIndex, toIndex, generation, firstBucket, lastBucket),
+                    select(mask, tags, generations, fromIndex, toIndex, generation, firstBucket, lastBucket));
+        }
+    }
+
+    private int[] select(WindowMask mask, long[] tags, long[] generations, int fromIndex, int toIndex,
+                         long generation, long firstBucket, long lastBucket) {
+        int[] selected = new int[toIndex - fromIndex];
+        int count = mask.select(tags, generations, fromIndex, toIndex, generation, firstBucket, lastBucket, selected);
+        return Arrays.copyOf(selected, count);
+    }
+}
@@ -0,0 +1,140 @@
+package com.middy.assignment.tracing;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.middy.assignment.dto.OrderDto;
+import com.middy.assignment.dto.transformers.OrderTransformer;
+import com.middy.assignment.exception.OrderValidationException;
+import com.middy.assignment.metrics.StatisticsMetrics;
+import com.middy.assignment.model.Order;
+import com.middy.assignment.service.StatisticsModule;
+
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TailSamplingSpanProcessorTest {
+
+    private static final int STATS_PERIOD = 60000;
+    // 2023-10-05T10:30:00Z
+    private static final long NOW = 1696501800000L;
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    private Tracer tracer(double ratio, long latencyThresholdNanos) {
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(new TailSamplingSpanProcessor(SimpleSpanProcessor.create(exporter), ratio, latencyThresholdNanos))
+                .build();
+        return tracerProvider.get("test");
+    }
+
+    private StatisticsModule module(Tracer tracer) {
+        return new StatisticsModule(Clock.fixed(Instant.ofEpochMilli(NOW), UTC), STATS_PERIOD,
+                new StatisticsMetrics(new SimpleMeterRegistry(), 0), tracer);
+    }
+
+    private SpanData onlySpan(String name) {
+        List<SpanData> spans = exporter.getFinishedSpanItems().stream().filter(span -> span.getName().equals(name)).toList();
+        assertEquals(1, spans.size());
+        return spans.get(0);
+    }
+
+    @Test
+    @DisplayName("Should trace ingest with bucket index, lock wait and outcome")
+    void shouldTraceIngest() {
+        StatisticsModule module = module(tracer(1.0, Long.MAX_VALUE));
+
+        module.addOrder(new Order(new BigDecimal("10.00"), NOW - 5));
+        assertThrows(OrderValidationException.OldOrderException.class,
+                () -> module.addOrder(new Order(BigDecimal.ONE, NOW - STATS_PERIOD)));
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        assertEquals("accepted", spans.get(0).getAttributes().get(SpanAttributes.OUTCOME));
+        assertEquals((NOW - 5) % (STATS_PERIOD + 1), spans.get(0).getAttributes().get(SpanAttributes.BUCKET_INDEX));
+        assertTrue(spans.get(0).getAttributes().get(SpanAttributes.LOCK_WAIT_NANOS) >= 0);
+        assertEquals(false, spans.get(0).getAttributes().get(SpanAttributes.BUCKET_RECYCLED));
+        assertEquals("old", spans.get(1).getAttributes().get(SpanAttributes.OUTCOME));
+    }
+
+    @Test
+    @DisplayName("Should trace queries with the number of buckets scanned")
+    void shouldTraceQuery() {
+        StatisticsModule module = module(tracer(1.0, Long.MAX_VALUE));
+        module.addOrder(new Order(new BigDecimal("10.00"), NOW - 5));
+
+        module.getStatistics(NOW, STATS_PERIOD);
+
+        SpanData span = onlySpan(SpanAttributes.GET_STATISTICS);
+        assertEquals(STATS_PERIOD, span.getAttributes().get(SpanAttributes.BUCKETS_SCANNED));
+        assertEquals(1L, span.getAttributes().get(SpanAttributes.ORDERS_COUNTED));
+        assertEquals(false, span.getAttributes().get(SpanAttributes.COALESCED));
+    }
+
+    @Test
+    @DisplayName("Should trace validation outcomes")
+    void shouldTraceValidation() {
+        OrderTransformer transformer = new OrderTransformer(Clock.fixed(Instant.ofEpochMilli(NOW), UTC),
+                StatisticsMetrics.disabled(), tracer(1.0, Long.MAX_VALUE));
+
+        transformer.validateAndTransformToOrder(new OrderDto("1.00", Instant.ofEpochMilli(NOW).toString()));
+        assertThrows(OrderValidationException.class, () -> transformer.validateAndTransformToOrder(new OrderDto("x", "y")));
+        assertThrows(OrderValidationException.class, () -> transformer.validateAndTransformToOrder(
+                new OrderDto("1.00", Instant.ofEpochMilli(NOW + 1).toString())));
+
+        List<String> outcomes = exporter.getFinishedSpanItems().stream()
+                .map(span -> span.getAttributes().get(SpanAttributes.OUTCOME))
+                .toList();
+        assertEquals(List.of("accepted", "invalid", "future"), outcomes);
+    }
+
+    @Test
+    @DisplayName("Should drop fast spans outside the sampled ratio")
+    void shouldDropFastUnsampledSpans() {
+        StatisticsModule module = module(tracer(0.0, Long.MAX_VALUE));
+
+        module.addOrder(new Order(new BigDecimal("10.00"), NOW - 5));
+        module.getStatistics(NOW, STATS_PERIOD);
+
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep spans above the latency threshold outside the sampled ratio")
+    void shouldKeepSlowSpans() {
+        StatisticsModule module = module(tracer(0.0, 0));
+
+        module.addOrder(new Order(new BigDecimal("10.00"), NOW - 5));
+        module.getStatistics(NOW, STATS_PERIOD);
+
+        assertEquals(2, exporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    @DisplayName("Should reject a ratio outside [0, 1]")
+    void shouldRejectInvalidRatio() {
+        tracerProvider = SdkTracerProvider.builder().build();
+        assertThrows(IllegalArgumentException.class,
+                () -> new TailSamplingSpanProcessor(SimpleSpanProcessor.create(exporter), 1.5, 0));
+    }
+}
@@ -0,0 +1,34 @@
+package com.middy.assignment.service;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link WindowMask} comparing {@code LongVector.SPECIES_PREFERRED.length()} slots per step with the Vector API.
+ * Built with the {@code vector} Maven profile only, and loaded by {@link WindowMask#create()} when
+ * {@code jdk.incubator.vector} is part of the boot layer.
+ */
+final class VectorWindowMask implements WindowMask {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public int select(long[] tags, long[] generations, int fromIndex, int toIndex,
+                      long generation, long firstBucket, long lastBucket, int[] selected) {
+        int count = 0;
+        int i = fromIndex;
+        int upperBound = fromIndex + SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < upperBound; i += SPECIES.length()) {
+            LongVector tagLanes = LongVector.fromArray(SPECIES, tags, i);
+            VectorMask<Long> member = tagLanes.compare(VectorOperators.GE, firstBucket)
+                    .and(tagLanes.compare(VectorOperators.LE, lastBucket))
+                    .and(LongVector.fromArray(SPECIES, generations, i).compare(VectorOperators.EQ, generation));
+            for (long lanes = member.toLong(); lanes != 0; lanes &= lanes - 1) {
+                selected[count++] = i + Long.numberOfTrailingZeros(lanes);
+            }
+        }
+        return ScalarWindowMask.select(tags, generations, i, toIndex, generation, firstBucket, lastBucket, selected, count);
+    }
+}